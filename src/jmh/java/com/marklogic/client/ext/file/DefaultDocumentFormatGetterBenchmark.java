@@ -0,0 +1,46 @@
+package com.marklogic.client.ext.file;
+
+import com.marklogic.client.io.Format;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures determining the Format of a mix of filenames; getFilename doesn't touch the filesystem, so the files don't
+ * need to exist.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DefaultDocumentFormatGetterBenchmark {
+
+	private final static String[] FILENAMES = {"module.xqy", "schema.xsd", "data.json", "image.PNG", "archive.tar.gz",
+		"style.css", "template.tdej", "README", "lib.sjs", "doc.xml"};
+
+	private DefaultDocumentFormatGetter formatGetter;
+	private Resource[] resources;
+
+	@Setup
+	public void setup() {
+		formatGetter = new DefaultDocumentFormatGetter();
+		resources = new Resource[FILENAMES.length];
+		for (int i = 0; i < FILENAMES.length; i++) {
+			resources[i] = new FileSystemResource("/benchmark/" + FILENAMES[i]);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(10)
+	public void getFormat(Blackhole blackhole) {
+		for (Resource resource : resources) {
+			Format format = formatGetter.getFormat(resource);
+			blackhole.consume(format);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.marklogic.client.ext.file;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures walking a synthetic directory tree with DefaultDocumentFileReader, and applying the default
+ * DocumentFileProcessor chain to a DocumentFile without walking the tree. The tree has a collections.properties and a
+ * permissions.properties file in every directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DocumentFileReaderBenchmark {
+
+	@Param({"10"})
+	private int directoryCount;
+
+	@Param({"100"})
+	private int filesPerDirectory;
+
+	private File root;
+	private List<File> files = new ArrayList<>();
+
+	@Setup
+	public void setup() throws IOException {
+		root = Files.createTempDirectory("document-file-reader-benchmark").toFile();
+		for (int i = 0; i < directoryCount; i++) {
+			File dir = new File(root, "dir" + i);
+			dir.mkdirs();
+			write(new File(dir, "collections.properties"), "*=red,blue\n");
+			write(new File(dir, "permissions.properties"), "*=rest-reader,read,rest-writer,update\n");
+			for (int j = 0; j < filesPerDirectory; j++) {
+				File file = new File(dir, "doc" + j + (j % 2 == 0 ? ".xml" : ".json"));
+				write(file, j % 2 == 0 ? "<doc>" + j + "</doc>" : "{\"doc\":" + j + "}");
+				files.add(file);
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		FileSystemUtils.deleteRecursively(root);
+	}
+
+	@Benchmark
+	public List<DocumentFile> readDocumentFiles() {
+		return new DefaultDocumentFileReader().readDocumentFiles(root.getAbsolutePath());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(100)
+	public void processDocumentFile(ProcessorState state, Blackhole blackhole) {
+		for (int i = 0; i < 100; i++) {
+			File file = files.get(i % files.size());
+			blackhole.consume(state.reader.processDocumentFile(new DocumentFile("/" + file.getName(), file)));
+		}
+	}
+
+	/**
+	 * A reader that has already loaded the properties files in the first directory, so that only the processor chain
+	 * is measured.
+	 */
+	@State(Scope.Thread)
+	public static class ProcessorState {
+
+		private DefaultDocumentFileReader reader;
+
+		@Setup
+		public void setup(DocumentFileReaderBenchmark benchmark) {
+			reader = new DefaultDocumentFileReader();
+			reader.processDocumentFile(new DocumentFile("/warmup", benchmark.files.get(0)));
+		}
+	}
+
+	private void write(File file, String text) throws IOException {
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+	}
+}
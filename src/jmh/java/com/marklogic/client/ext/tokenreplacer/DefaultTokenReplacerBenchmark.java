@@ -0,0 +1,61 @@
+package com.marklogic.client.ext.tokenreplacer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replacing tokens in a module, both in memory and via a Reader and Writer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DefaultTokenReplacerBenchmark {
+
+	@Param({"1024", "65536"})
+	private int contentLength;
+
+	@Param({"10", "200"})
+	private int tokenCount;
+
+	private DefaultTokenReplacer tokenReplacer;
+	private String content;
+
+	@Setup
+	public void setup() {
+		Properties props = new Properties();
+		for (int i = 0; i < tokenCount; i++) {
+			props.setProperty("%%token" + i + "%%", "value" + i);
+		}
+		tokenReplacer = new DefaultTokenReplacer();
+		tokenReplacer.setProperties(props);
+
+		// Roughly one token per 100 characters, spread across every configured token
+		StringBuilder sb = new StringBuilder(contentLength);
+		int i = 0;
+		while (sb.length() < contentLength) {
+			sb.append("xquery version \"1.0-ml\"; let $x := \"%%token").append(i++ % tokenCount).append("%%\" return $x\n");
+		}
+		content = sb.toString();
+		tokenReplacer.replaceTokens(content);
+	}
+
+	@Benchmark
+	public String replaceTokens() {
+		return tokenReplacer.replaceTokens(content);
+	}
+
+	@Benchmark
+	public String replaceTokensStreaming() throws IOException {
+		StringWriter writer = new StringWriter(contentLength);
+		tokenReplacer.replaceTokens(new StringReader(content), writer);
+		return writer.toString();
+	}
+}
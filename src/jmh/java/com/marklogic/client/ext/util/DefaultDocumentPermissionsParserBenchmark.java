@@ -0,0 +1,34 @@
+package com.marklogic.client.ext.util;
+
+import com.marklogic.client.io.DocumentMetadataHandle;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a typical permissions string into DocumentPermissions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DefaultDocumentPermissionsParserBenchmark {
+
+    // Not a @Param, as JMH would split the value on its commas
+    private final static String PERMISSIONS =
+        "rest-reader,read,rest-writer,update,rest-extension-user,execute,app-admin,insert,app-admin,update";
+
+    private DefaultDocumentPermissionsParser parser = new DefaultDocumentPermissionsParser();
+
+    // Reused so that the cost of constructing a DocumentMetadataHandle isn't measured
+    private DocumentMetadataHandle.DocumentPermissions permissions = new DocumentMetadataHandle().getPermissions();
+
+    @Benchmark
+    public DocumentMetadataHandle.DocumentPermissions parsePermissions() {
+        permissions.clear();
+        parser.parsePermissions(PERMISSIONS, permissions);
+        return permissions;
+    }
+}
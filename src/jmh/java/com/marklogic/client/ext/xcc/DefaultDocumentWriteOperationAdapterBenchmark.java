@@ -0,0 +1,60 @@
+package com.marklogic.client.ext.xcc;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.ext.batch.SimpleDocumentWriteOperation;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.FileHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.xcc.Content;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adapting DocumentWriteOperations into XCC Content objects, with String and File content. A new
+ * DocumentMetadataHandle is built for each operation, as DocumentFile and SimpleDocumentWriteOperation do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DefaultDocumentWriteOperationAdapterBenchmark {
+
+	@Param({"true", "false"})
+	private boolean cacheContentCreateOptions;
+
+	private DefaultDocumentWriteOperationAdapter adapter;
+	private SimpleDocumentWriteOperation stringOperation;
+	private File file;
+
+	@Setup
+	public void setup() throws IOException {
+		adapter = new DefaultDocumentWriteOperationAdapter();
+		adapter.setCacheContentCreateOptions(cacheContentCreateOptions);
+		stringOperation = new SimpleDocumentWriteOperation("/test.json", "{\"hello\":\"world\"}", "red", "blue")
+			.addPermissions("rest-reader", DocumentMetadataHandle.Capability.READ)
+			.addPermissions("rest-writer", DocumentMetadataHandle.Capability.UPDATE);
+		file = File.createTempFile("adapter-benchmark", ".xml");
+		file.deleteOnExit();
+	}
+
+	@Benchmark
+	public Content adaptString() {
+		return adapter.adapt(stringOperation);
+	}
+
+	@Benchmark
+	public Content adaptFile() {
+		DocumentMetadataHandle metadata = new DocumentMetadataHandle();
+		metadata.withCollections("red", "blue");
+		metadata.withPermission("rest-reader", DocumentMetadataHandle.Capability.READ);
+		metadata.setFormat(Format.XML);
+		return adapter.adapt(new DocumentWriteOperationImpl(DocumentWriteOperation.OperationType.DOCUMENT_WRITE,
+			"/test.xml", metadata, new FileHandle(file)));
+	}
+}
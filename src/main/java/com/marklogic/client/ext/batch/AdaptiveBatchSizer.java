@@ -0,0 +1,122 @@
+package com.marklogic.client.ext.batch;
+
+import com.marklogic.client.ext.helper.LoggingObject;
+
+/**
+ * Determines how many documents to write in a batch based on how previous batches went, using additive-increase /
+ * multiplicative-decrease (AIMD). Every batch that succeeded within targetBatchMillis and that was at least as large
+ * as the current batch size grows the batch size by additiveIncrease. A batch that failed, or that took longer than
+ * targetBatchMillis, shrinks the batch size by decreaseFactor. The batch size always stays between minBatchSize and
+ * maxBatchSize.
+ * <p>
+ * Because batches are written in parallel, several batches may fail or run slowly for the same reason. Only batches
+ * that were started after the most recent decrease can cause another decrease, so that the batch size isn't shrunk
+ * repeatedly for a single problem.
+ * <p>
+ * This is threadsafe so that it can be shared by every thread writing batches.
+ */
+public class AdaptiveBatchSizer extends LoggingObject {
+
+	private int minBatchSize = 1;
+	private int maxBatchSize = 10000;
+	private int additiveIncrease = 25;
+	private double decreaseFactor = 0.5;
+	private long targetBatchMillis = 2000;
+
+	private volatile int batchSize;
+	private long lastDecreaseNanos = 0;
+
+	public AdaptiveBatchSizer() {
+		this(100);
+	}
+
+	public AdaptiveBatchSizer(int initialBatchSize) {
+		this.batchSize = initialBatchSize;
+	}
+
+	/**
+	 * @return the number of documents to put in the next batch
+	 */
+	public int getBatchSize() {
+		return Math.max(minBatchSize, Math.min(maxBatchSize, batchSize));
+	}
+
+	/**
+	 * @param count      the number of documents in the batch
+	 * @param startNanos the value of System.nanoTime() when the batch was started
+	 * @param endNanos   the value of System.nanoTime() when the batch finished
+	 */
+	public synchronized void onBatchSucceeded(int count, long startNanos, long endNanos) {
+		long millis = (endNanos - startNanos) / 1000000;
+		if (millis > targetBatchMillis) {
+			decrease(startNanos, format("batch of %d documents took %dms", count, millis));
+		} else if (count >= getBatchSize() && batchSize < maxBatchSize) {
+			batchSize = Math.min(maxBatchSize, getBatchSize() + additiveIncrease);
+			if (logger.isDebugEnabled()) {
+				logger.debug(format("Batch of %d documents took %dms; increased batch size to %d", count, millis, batchSize));
+			}
+		}
+	}
+
+	/**
+	 * @param count      the number of documents in the batch
+	 * @param startNanos the value of System.nanoTime() when the batch was started
+	 */
+	public synchronized void onBatchFailed(int count, long startNanos) {
+		decrease(startNanos, format("batch of %d documents failed", count));
+	}
+
+	private void decrease(long startNanos, String reason) {
+		if (lastDecreaseNanos != 0 && startNanos - lastDecreaseNanos < 0) {
+			return;
+		}
+		int newSize = Math.max(minBatchSize, (int) (getBatchSize() * decreaseFactor));
+		if (newSize != batchSize) {
+			batchSize = newSize;
+			if (logger.isInfoEnabled()) {
+				logger.info(format("Decreased batch size to %d; %s", newSize, reason));
+			}
+		}
+		lastDecreaseNanos = System.nanoTime();
+	}
+
+	public int getMinBatchSize() {
+		return minBatchSize;
+	}
+
+	public void setMinBatchSize(int minBatchSize) {
+		this.minBatchSize = minBatchSize;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	public int getAdditiveIncrease() {
+		return additiveIncrease;
+	}
+
+	public void setAdditiveIncrease(int additiveIncrease) {
+		this.additiveIncrease = additiveIncrease;
+	}
+
+	public double getDecreaseFactor() {
+		return decreaseFactor;
+	}
+
+	public void setDecreaseFactor(double decreaseFactor) {
+		this.decreaseFactor = decreaseFactor;
+	}
+
+	public long getTargetBatchMillis() {
+		return targetBatchMillis;
+	}
+
+	public void setTargetBatchMillis(long targetBatchMillis) {
+		this.targetBatchMillis = targetBatchMillis;
+	}
+}
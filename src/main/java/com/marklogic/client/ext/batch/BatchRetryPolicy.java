@@ -0,0 +1,211 @@
+package com.marklogic.client.ext.batch;
+
+import com.marklogic.client.MarkLogicServerException;
+import com.marklogic.client.impl.FailedRequest;
+import com.marklogic.xcc.exceptions.QueryException;
+import com.marklogic.xcc.exceptions.RequestPermissionException;
+import com.marklogic.xcc.exceptions.RetryableQueryException;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+import com.marklogic.xcc.exceptions.ServerResponseException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Determines how BatchWriterSupport handles a batch that fails to be written.
+ * <p>
+ * A failure is considered transient if it - or any of its causes - is an IOException such as a connection reset, an
+ * XCC connection or retryable query error, a REST response with one of the retryableStatusCodes, or has a message
+ * containing one of the retryableErrorCodes. A transient failure is retried up to maxRetries times, waiting between
+ * each attempt for a random amount of time up to an exponentially increasing backoff ("full jitter").
+ * <p>
+ * Any other failure is considered permanent. If bisectOnFailure is true, a batch that fails permanently because of a
+ * document in it is split in half, and each half is written - with the same retry behavior - on its own. This repeats
+ * until the documents that can't be written are isolated, so that one bad document doesn't keep the rest of its batch
+ * from being written. A failure is considered to be caused by a document if it has one of the bisectableStatusCodes -
+ * by default, just 400 - or an error code starting with one of the documentErrorCodePrefixes, such as
+ * XDMP-DOCROOTTEXT. Any other permanent failure, such as a 401 or a permission error, affects every document in the
+ * batch, so the batch isn't split.
+ */
+public class BatchRetryPolicy {
+
+	public final static List<String> DEFAULT_RETRYABLE_ERROR_CODES = Arrays.asList(
+		"XDMP-FORESTNOTOPEN", "XDMP-FORESTERR", "XDMP-XDQPNOSESSION", "XDMP-XDQPDISC", "XDMP-EXTIME",
+		"XDMP-RETRY", "SVC-EXTIME", "Connection reset", "Service Unavailable");
+
+	public final static List<String> DEFAULT_DOCUMENT_ERROR_CODE_PREFIXES = Arrays.asList(
+		"XDMP-DOC", "XDMP-JSONDOC", "XDMP-JSONCHAR", "XDMP-BADCHAR", "XDMP-UTF8SEQ", "XDMP-ENCODING", "XDMP-VALIDATE");
+
+	private int maxRetries = 3;
+	private long initialBackoffMillis = 250;
+	private long maxBackoffMillis = 10000;
+	private boolean bisectOnFailure = true;
+	private List<Integer> retryableStatusCodes = new ArrayList<>(Arrays.asList(502, 503, 504));
+	private List<String> retryableErrorCodes = new ArrayList<>(DEFAULT_RETRYABLE_ERROR_CODES);
+	private List<Integer> bisectableStatusCodes = new ArrayList<>(Arrays.asList(400));
+	private List<String> documentErrorCodePrefixes = new ArrayList<>(DEFAULT_DOCUMENT_ERROR_CODE_PREFIXES);
+
+	/**
+	 * @param ex
+	 * @return true if the failure is likely to be temporary, such that writing the same batch again may succeed
+	 */
+	public boolean isRetryable(Throwable ex) {
+		for (Throwable t = ex; t != null; t = t.getCause() == t ? null : t.getCause()) {
+			if (t instanceof IOException || t instanceof RetryableQueryException) {
+				return true;
+			}
+			if (t instanceof ServerResponseException) {
+				if (retryableStatusCodes.contains(((ServerResponseException) t).getResponseCode())) {
+					return true;
+				}
+			} else if (t instanceof ServerConnectionException) {
+				return true;
+			}
+			if (t instanceof MarkLogicServerException) {
+				FailedRequest failedRequest = ((MarkLogicServerException) t).getFailedRequest();
+				if (failedRequest != null && (retryableStatusCodes.contains(failedRequest.getStatusCode())
+					|| retryableErrorCodes.contains(failedRequest.getMessageCode()))) {
+					return true;
+				}
+			}
+			String message = t.getMessage();
+			if (message != null) {
+				for (String code : retryableErrorCodes) {
+					if (message.contains(code)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param ex a failure that isn't retryable
+	 * @return true if the failure is likely to be caused by one or more documents in the batch, such that splitting the
+	 * batch would allow the other documents to be written
+	 */
+	public boolean isBisectable(Throwable ex) {
+		for (Throwable t = ex; t != null; t = t.getCause() == t ? null : t.getCause()) {
+			if (t instanceof RequestPermissionException) {
+				return false;
+			}
+			if (t instanceof MarkLogicServerException) {
+				FailedRequest failedRequest = ((MarkLogicServerException) t).getFailedRequest();
+				if (failedRequest != null) {
+					if (isDocumentErrorCode(failedRequest.getMessageCode())) {
+						return true;
+					}
+					if (failedRequest.getStatusCode() > 0) {
+						return bisectableStatusCodes.contains(failedRequest.getStatusCode());
+					}
+				}
+			}
+			if (t instanceof ServerResponseException) {
+				return bisectableStatusCodes.contains(((ServerResponseException) t).getResponseCode());
+			}
+			if (t instanceof QueryException && isDocumentErrorCode(((QueryException) t).getCode())) {
+				return true;
+			}
+			String message = t.getMessage();
+			if (message != null) {
+				for (String prefix : documentErrorCodePrefixes) {
+					if (message.contains(prefix)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	protected boolean isDocumentErrorCode(String code) {
+		if (code != null) {
+			for (String prefix : documentErrorCodePrefixes) {
+				if (code.startsWith(prefix)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param retry the number of the retry that's about to be attempted, starting at 1
+	 * @return a random number of milliseconds between zero and the backoff for the given retry
+	 */
+	public long getBackoffMillis(int retry) {
+		long backoff = initialBackoffMillis << Math.min(retry - 1, 30);
+		if (backoff <= 0 || backoff > maxBackoffMillis) {
+			backoff = maxBackoffMillis;
+		}
+		return backoff > 0 ? ThreadLocalRandom.current().nextLong(backoff + 1) : 0;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	public long getInitialBackoffMillis() {
+		return initialBackoffMillis;
+	}
+
+	public void setInitialBackoffMillis(long initialBackoffMillis) {
+		this.initialBackoffMillis = initialBackoffMillis;
+	}
+
+	public long getMaxBackoffMillis() {
+		return maxBackoffMillis;
+	}
+
+	public void setMaxBackoffMillis(long maxBackoffMillis) {
+		this.maxBackoffMillis = maxBackoffMillis;
+	}
+
+	public boolean isBisectOnFailure() {
+		return bisectOnFailure;
+	}
+
+	public void setBisectOnFailure(boolean bisectOnFailure) {
+		this.bisectOnFailure = bisectOnFailure;
+	}
+
+	public List<Integer> getRetryableStatusCodes() {
+		return retryableStatusCodes;
+	}
+
+	public void setRetryableStatusCodes(List<Integer> retryableStatusCodes) {
+		this.retryableStatusCodes = retryableStatusCodes;
+	}
+
+	public List<String> getRetryableErrorCodes() {
+		return retryableErrorCodes;
+	}
+
+	public void setRetryableErrorCodes(List<String> retryableErrorCodes) {
+		this.retryableErrorCodes = retryableErrorCodes;
+	}
+
+	public List<Integer> getBisectableStatusCodes() {
+		return bisectableStatusCodes;
+	}
+
+	public void setBisectableStatusCodes(List<Integer> bisectableStatusCodes) {
+		this.bisectableStatusCodes = bisectableStatusCodes;
+	}
+
+	public List<String> getDocumentErrorCodePrefixes() {
+		return documentErrorCodePrefixes;
+	}
+
+	public void setDocumentErrorCodePrefixes(List<String> documentErrorCodePrefixes) {
+		this.documentErrorCodePrefixes = documentErrorCodePrefixes;
+	}
+}
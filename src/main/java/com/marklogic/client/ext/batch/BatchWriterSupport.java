@@ -1,7 +1,16 @@
 package com.marklogic.client.ext.batch;
 
 import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.ext.file.DocumentFile;
+import com.marklogic.client.ext.helper.CompletionTracker;
 import com.marklogic.client.ext.helper.LoggingObject;
+import com.marklogic.client.io.BytesHandle;
+import com.marklogic.client.io.FileHandle;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.io.OutputStreamHandle;
+import com.marklogic.client.io.ReaderHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
 import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
@@ -10,28 +19,114 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Support class for BatchWriter implementations that uses Spring's TaskExecutor interface for parallelizing writes to
  * MarkLogic. Allows for setting a TaskExecutor instance, and if one is not set, a default one will be created based
  * on the threadCount attribute. That attribute is ignored if a TaskExecutor is set.
+ * <p>
+ * If an AdaptiveBatchSizer is set, then each list of documents passed to write is divided into batches sized by the
+ * AdaptiveBatchSizer, and the time taken by each batch - or its failure - is reported back to the AdaptiveBatchSizer so
+ * that it can adjust the size of subsequent batches.
+ * <p>
+ * By default, write never blocks, and the default TaskExecutor queues every batch it can't yet run. To bound the
+ * memory used by a fast producer, set maxInFlightBatches and/or maxInFlightBytes; a batch is in flight from the time
+ * it's submitted until it's finished. When a limit is reached, the backpressurePolicy determines whether write blocks
+ * until a batch finishes, or writes the batch on the calling thread instead.
+ * <p>
+ * If a BatchRetryPolicy is set, a batch that fails with a transient error is retried with backoff, and a batch that
+ * fails with a permanent error caused by a document is split in half repeatedly to isolate the documents that can't
+ * be written. When only some documents in a batch can't be written, each isolated failure is passed to the
+ * WriteListener, if one is set.
+ * A batch whose content can only be read once - e.g. an InputStreamHandle - is neither retried nor split; its failure
+ * is reported as is.
+ * <p>
+ * If a WriteMetricsListener is set, it's told when each batch is submitted, started, retried, and finished, and when
+ * each request to a host finishes. WriteMetrics can be used to collect these into a snapshot of throughput and latency.
+ * <p>
+ * waitForCompletion waits for every batch submitted so far to finish, but doesn't shut down the default TaskExecutor,
+ * so that the same threads are used by every subsequent call to write. The default TaskExecutor uses daemon threads
+ * that time out when idle, so it doesn't need to be shut down; call shutdownTaskExecutor to release its threads right
+ * away, or set shutdownTaskExecutorOnCompletion to true to do so at the end of every call to waitForCompletion. A
+ * TaskExecutor that was set on this class is still shut down by waitForCompletion if it's a Spring thread pool, as it
+ * always has been, unless shutdownTaskExecutorOnCompletion is set to false.
  */
 public abstract class BatchWriterSupport extends LoggingObject implements BatchWriter {
 
 	private TaskExecutor taskExecutor;
+	private boolean defaultTaskExecutor = false;
 	private int threadCount = 16;
 	private WriteListener writeListener;
+	private AdaptiveBatchSizer batchSizer;
+	private BatchRetryPolicy retryPolicy;
+	private WriteMetricsListener metricsListener;
+	// When not set, only a TaskExecutor that was set on this class is shut down on completion
+	private Boolean shutdownTaskExecutorOnCompletion;
+	private int threadKeepAliveSeconds = 60;
+
+	private final CompletionTracker completionTracker = new CompletionTracker();
+
+	private int maxInFlightBatches = 0;
+	private long maxInFlightBytes = 0;
+	private BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+	private InFlightLimiter inFlightLimiter;
+
+	/**
+	 * What to do with a batch when the maximum number of batches or bytes are already in flight.
+	 */
+	public enum BackpressurePolicy {
+		/**
+		 * Block the calling thread until enough in-flight batches have finished.
+		 */
+		BLOCK,
+		/**
+		 * Write the batch on the calling thread, which also keeps the caller from producing more until it's written.
+		 */
+		CALLER_RUNS
+	}
 
 	@Override
 	public void initialize() {
 		if (taskExecutor == null) {
 			initializeDefaultTaskExecutor();
 		}
+		if (inFlightLimiter == null && (maxInFlightBatches > 0 || maxInFlightBytes > 0)) {
+			inFlightLimiter = new InFlightLimiter(maxInFlightBatches, maxInFlightBytes);
+		}
 	}
 
+	/**
+	 * Waits for every batch that has been submitted to finish. The TaskExecutor is then shut down if
+	 * shutdownTaskExecutorOnCompletion is true. If it hasn't been set, the default TaskExecutor is kept for reuse, while
+	 * a TaskExecutor that was set on this class is shut down.
+	 */
 	@Override
 	public void waitForCompletion() {
+		if (logger.isDebugEnabled()) {
+			logger.debug(format("Waiting for %d batches to finish", completionTracker.getPendingCount()));
+		}
+		try {
+			completionTracker.awaitCompletion();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for batches to finish", ie);
+		}
+		if (isShutdownTaskExecutorOnCompletion()) {
+			shutdownTaskExecutor();
+		}
+	}
+
+	/**
+	 * Shuts down the TaskExecutor if it's a thread pool, waiting for its tasks to finish; a new one is created the next
+	 * time initialize is called.
+	 */
+	public void shutdownTaskExecutor() {
 		if (taskExecutor instanceof ExecutorConfigurationSupport) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Calling shutdown on thread pool");
@@ -41,6 +136,7 @@ public abstract class BatchWriterSupport extends LoggingObject implements BatchW
 				logger.debug("Thread pool finished shutdown");
 			}
 			taskExecutor = null;
+			defaultTaskExecutor = false;
 		}
 	}
 
@@ -56,38 +152,412 @@ public abstract class BatchWriterSupport extends LoggingObject implements BatchW
 			tpte.setWaitForTasksToCompleteOnShutdown(true);
 			tpte.setAwaitTerminationSeconds(60 * 60);
 
+			// The pool is kept between jobs, so it must not keep the JVM from exiting, and it releases idle threads
+			tpte.setDaemon(true);
+			tpte.setAllowCoreThreadTimeOut(true);
+			tpte.setKeepAliveSeconds(threadKeepAliveSeconds);
+
 			tpte.afterPropertiesSet();
 			this.taskExecutor = tpte;
+			this.defaultTaskExecutor = true;
 		} else {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Thread count is 1, so using a synchronous TaskExecutor");
 			}
 			this.taskExecutor = new SyncTaskExecutor();
+			this.defaultTaskExecutor = true;
+		}
+	}
+
+	/**
+	 * Hands the given items to the consumer, either all at once, or - if an AdaptiveBatchSizer is set - in batches
+	 * sized by the AdaptiveBatchSizer. The size of each batch is determined right before it's handed off, so that it
+	 * reflects every batch that's finished so far.
+	 *
+	 * @param items
+	 * @param batchConsumer
+	 */
+	protected void writeInBatches(List<? extends DocumentWriteOperation> items, Consumer<List<? extends DocumentWriteOperation>> batchConsumer) {
+		if (batchSizer == null) {
+			batchConsumer.accept(items);
+			return;
+		}
+		final int size = items.size();
+		int position = 0;
+		while (position < size) {
+			int end = Math.min(size, position + batchSizer.getBatchSize());
+			batchConsumer.accept(items.subList(position, end));
+			position = end;
 		}
 	}
 
+	/**
+	 * @param items
+	 * @param runnableBuilder builds the Runnable that writes a given list of documents; it's called again for each
+	 *                        retry and for each half of a bisected batch
+	 * @return a Runnable that writes the items according to the BatchRetryPolicy, if one is set
+	 */
+	protected Runnable buildRetryingRunnable(List<? extends DocumentWriteOperation> items,
+	                                         Function<List<? extends DocumentWriteOperation>, Runnable> runnableBuilder) {
+		final BatchRetryPolicy policy = this.retryPolicy;
+		if (policy == null) {
+			return runnableBuilder.apply(items);
+		}
+		return () -> {
+			List<BatchFailure> failures = new ArrayList<>();
+			writeWithRetries(items, runnableBuilder, policy, failures);
+			if (failures.isEmpty()) {
+				return;
+			}
+			if (failures.size() == 1 && failures.get(0).items.size() == items.size()) {
+				throw failures.get(0).exception;
+			}
+
+			int failedCount = 0;
+			for (BatchFailure failure : failures) {
+				failedCount += failure.items.size();
+			}
+			logger.error(format("Unable to write %d of %d documents in batch", failedCount, items.size()));
+			if (writeListener != null) {
+				for (BatchFailure failure : failures) {
+					writeListener.onWriteFailure(failure.exception, failure.items);
+				}
+			} else {
+				RuntimeException first = failures.get(0).exception;
+				throw new RuntimeException(format("Unable to write %d of %d documents in batch; first cause: %s",
+					failedCount, items.size(), first.getMessage()), first);
+			}
+		};
+	}
+
+	private void writeWithRetries(List<? extends DocumentWriteOperation> items,
+	                              Function<List<? extends DocumentWriteOperation>, Runnable> runnableBuilder,
+	                              BatchRetryPolicy policy, List<BatchFailure> failures) {
+		int retry = 0;
+		while (true) {
+			try {
+				runnableBuilder.apply(items).run();
+				return;
+			} catch (RuntimeException ex) {
+				if (!isResendable(items)) {
+					logger.warn(format("Not retrying batch of %d documents, as its content can't be resent; cause: %s",
+						items.size(), ex.getMessage()));
+					failures.add(new BatchFailure(ex, items));
+					return;
+				}
+				boolean retryable = policy.isRetryable(ex);
+				if (retryable && retry < policy.getMaxRetries()) {
+					retry++;
+					if (metricsListener != null) {
+						metricsListener.onBatchRetry(items.size(), ex);
+					}
+					long backoff = policy.getBackoffMillis(retry);
+					logger.warn(format("Retrying batch of %d documents in %dms (retry %d of %d); cause: %s",
+						items.size(), backoff, retry, policy.getMaxRetries(), ex.getMessage()));
+					try {
+						Thread.sleep(backoff);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+						failures.add(new BatchFailure(ex, items));
+						return;
+					}
+				} else if (!retryable && policy.isBisectOnFailure() && items.size() > 1 && policy.isBisectable(ex)) {
+					int middle = items.size() / 2;
+					logger.warn(format("Splitting failed batch of %d documents to isolate the failure; cause: %s",
+						items.size(), ex.getMessage()));
+					writeWithRetries(items.subList(0, middle), runnableBuilder, policy, failures);
+					writeWithRetries(items.subList(middle, items.size()), runnableBuilder, policy, failures);
+					return;
+				} else {
+					failures.add(new BatchFailure(ex, items));
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A batch can be retried or split only if the content of each document can be sent again. Content that's read from a
+	 * stream has already been consumed by the failed attempt. A DocumentFile builds new content each time it's asked,
+	 * so it can always be resent.
+	 *
+	 * @param items
+	 * @return
+	 */
+	protected boolean isResendable(List<? extends DocumentWriteOperation> items) {
+		for (DocumentWriteOperation op : items) {
+			if (op instanceof DocumentFile) {
+				continue;
+			}
+			AbstractWriteHandle content = op.getContent();
+			if (content instanceof InputStreamHandle || content instanceof ReaderHandle) {
+				return false;
+			}
+			if (content instanceof OutputStreamHandle && !((OutputStreamHandle) content).isResendable()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static class BatchFailure {
+
+		private final RuntimeException exception;
+		private final List<? extends DocumentWriteOperation> items;
+
+		BatchFailure(RuntimeException exception, List<? extends DocumentWriteOperation> items) {
+			this.exception = exception;
+			this.items = items;
+		}
+	}
+
+	/**
+	 * Runs the Runnable, letting the HostSelector - and the WriteMetricsListener, if one is set - know when the request
+	 * to the given host started and finished.
+	 *
+	 * @param hostSelector
+	 * @param host
+	 * @param items        the documents being written by the Runnable
+	 * @param runnable
+	 * @param <T>
+	 */
+	protected <T> void runOnHost(HostSelector<T> hostSelector, T host, List<? extends DocumentWriteOperation> items,
+	                             Runnable runnable) {
+		hostSelector.onRequestStarted(host);
+		long start = System.nanoTime();
+		try {
+			runnable.run();
+		} catch (RuntimeException | Error ex) {
+			long duration = System.nanoTime() - start;
+			hostSelector.onRequestFinished(host, duration, ex);
+			if (metricsListener != null) {
+				metricsListener.onRequestFinished(describeHost(host), items.size(), duration, ex);
+			}
+			throw ex;
+		}
+		long duration = System.nanoTime() - start;
+		hostSelector.onRequestFinished(host, duration, null);
+		if (metricsListener != null) {
+			metricsListener.onRequestFinished(describeHost(host), items.size(), duration, null);
+		}
+	}
+
+	/**
+	 * @param host
+	 * @return a description of the host for the WriteMetricsListener; subclasses can override this for a more useful
+	 * description
+	 */
+	protected String describeHost(Object host) {
+		return String.valueOf(host);
+	}
+
 	/**
 	 * Will use the WriteListener if the TaskExecutor is an instance of AsyncListenableTaskExecutor. The WriteListener
 	 * will then be used to listen for failures.
+	 * <p>
+	 * If a limit on in-flight batches or bytes has been set, this first waits for room under that limit, or writes the
+	 * batch on the calling thread, depending on the backpressurePolicy.
 	 *
 	 * @param runnable
 	 * @param items
 	 */
 	protected void executeRunnable(Runnable runnable, final List<? extends DocumentWriteOperation> items) {
-		if (writeListener != null && taskExecutor instanceof AsyncListenableTaskExecutor) {
-			AsyncListenableTaskExecutor asyncListenableTaskExecutor = (AsyncListenableTaskExecutor)taskExecutor;
-			ListenableFuture<?> future = asyncListenableTaskExecutor.submitListenable(runnable);
-			future.addCallback(new ListenableFutureCallback<Object>() {
-				@Override
-				public void onFailure(Throwable ex) {
-					writeListener.onWriteFailure(ex, items);
+		if (batchSizer != null) {
+			runnable = new TimedRunnable(runnable, items.size(), batchSizer);
+		}
+		final WriteMetricsListener listener = this.metricsListener;
+		if (listener != null) {
+			long bytes = estimateContentLength(items);
+			listener.onBatchSubmitted(items.size(), bytes);
+			runnable = new MeasuredRunnable(runnable, items.size(), bytes, listener);
+		}
+
+		final InFlightLimiter limiter = this.inFlightLimiter;
+		if (limiter == null) {
+			submitRunnable(runnable, items);
+			return;
+		}
+
+		final long batchBytes = maxInFlightBytes > 0 ? estimateContentLength(items) : 0;
+		if (!limiter.tryAcquire(batchBytes)) {
+			if (backpressurePolicy == BackpressurePolicy.CALLER_RUNS) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Maximum in-flight batches reached, so writing batch on calling thread");
 				}
-				@Override
-				public void onSuccess(Object result) {
+				runOnCallingThread(runnable, items);
+				return;
+			}
+			try {
+				limiter.acquire(batchBytes);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while waiting for in-flight batches to finish", ie);
+			}
+		}
+
+		final Runnable inFlightRunnable = runnable;
+		try {
+			submitRunnable(() -> {
+				try {
+					inFlightRunnable.run();
+				} finally {
+					limiter.release(batchBytes);
 				}
-			});
-		} else {
-			taskExecutor.execute(runnable);
+			}, items);
+		} catch (RuntimeException ex) {
+			// The batch was rejected, so it'll never release itself
+			limiter.release(batchBytes);
+			throw ex;
+		}
+	}
+
+	protected void runOnCallingThread(Runnable runnable, List<? extends DocumentWriteOperation> items) {
+		try {
+			runnable.run();
+		} catch (RuntimeException ex) {
+			if (writeListener != null) {
+				writeListener.onWriteFailure(ex, items);
+			} else {
+				throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Estimates the number of bytes in a batch for enforcing maxInFlightBytes. Content whose length can't be known
+	 * without reading it counts as zero bytes.
+	 *
+	 * @param items
+	 * @return
+	 */
+	protected long estimateContentLength(List<? extends DocumentWriteOperation> items) {
+		long total = 0;
+		for (DocumentWriteOperation op : items) {
+			if (op instanceof DocumentFile) {
+				total += Math.max(0, ((DocumentFile) op).getContentLength());
+				continue;
+			}
+			AbstractWriteHandle content = op.getContent();
+			if (content instanceof StringHandle) {
+				String text = ((StringHandle) content).get();
+				total += text != null ? text.length() : 0;
+			} else if (content instanceof BytesHandle) {
+				byte[] bytes = ((BytesHandle) content).get();
+				total += bytes != null ? bytes.length : 0;
+			} else if (content instanceof FileHandle) {
+				File file = ((FileHandle) content).get();
+				total += file != null ? file.length() : 0;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * The batch is counted as finished by the CompletionTracker only once the WriteListener, if used, has been told about
+	 * a failure, so that waitForCompletion doesn't return before then.
+	 *
+	 * @param runnable
+	 * @param items
+	 */
+	private void submitRunnable(Runnable runnable, final List<? extends DocumentWriteOperation> items) {
+		// Guards against counting the batch as finished twice when a failure is both handled and thrown
+		final AtomicBoolean done = new AtomicBoolean(false);
+		final Runnable finished = () -> {
+			if (done.compareAndSet(false, true)) {
+				completionTracker.finished();
+			}
+		};
+		completionTracker.started();
+		try {
+			if (writeListener != null && taskExecutor instanceof AsyncListenableTaskExecutor) {
+				AsyncListenableTaskExecutor asyncListenableTaskExecutor = (AsyncListenableTaskExecutor)taskExecutor;
+				ListenableFuture<?> future = asyncListenableTaskExecutor.submitListenable(runnable);
+				future.addCallback(new ListenableFutureCallback<Object>() {
+					@Override
+					public void onFailure(Throwable ex) {
+						try {
+							writeListener.onWriteFailure(ex, items);
+						} finally {
+							finished.run();
+						}
+					}
+					@Override
+					public void onSuccess(Object result) {
+						finished.run();
+					}
+				});
+			} else {
+				taskExecutor.execute(() -> {
+					try {
+						runnable.run();
+					} finally {
+						finished.run();
+					}
+				});
+			}
+		} catch (RuntimeException ex) {
+			// The batch may have been rejected, in which case it would otherwise never be counted as finished
+			finished.run();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Reports how long a batch took - or that it failed - to an AdaptiveBatchSizer.
+	 */
+	private static class TimedRunnable implements Runnable {
+
+		private final Runnable runnable;
+		private final int count;
+		private final AdaptiveBatchSizer batchSizer;
+
+		TimedRunnable(Runnable runnable, int count, AdaptiveBatchSizer batchSizer) {
+			this.runnable = runnable;
+			this.count = count;
+			this.batchSizer = batchSizer;
+		}
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			try {
+				runnable.run();
+			} catch (RuntimeException | Error ex) {
+				batchSizer.onBatchFailed(count, start);
+				throw ex;
+			}
+			batchSizer.onBatchSucceeded(count, start, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Tells a WriteMetricsListener when a batch starts and finishes.
+	 */
+	private static class MeasuredRunnable implements Runnable {
+
+		private final Runnable runnable;
+		private final int count;
+		private final long bytes;
+		private final WriteMetricsListener listener;
+
+		MeasuredRunnable(Runnable runnable, int count, long bytes, WriteMetricsListener listener) {
+			this.runnable = runnable;
+			this.count = count;
+			this.bytes = bytes;
+			this.listener = listener;
+		}
+
+		@Override
+		public void run() {
+			listener.onBatchStarted(count);
+			long start = System.nanoTime();
+			try {
+				runnable.run();
+			} catch (RuntimeException | Error ex) {
+				listener.onBatchFinished(count, bytes, System.nanoTime() - start, ex);
+				throw ex;
+			}
+			listener.onBatchFinished(count, bytes, System.nanoTime() - start, null);
 		}
 	}
 
@@ -97,12 +567,67 @@ public abstract class BatchWriterSupport extends LoggingObject implements BatchW
 
 	public void setTaskExecutor(TaskExecutor taskExecutor) {
 		this.taskExecutor = taskExecutor;
+		this.defaultTaskExecutor = false;
 	}
 
 	public void setThreadCount(int threadCount) {
 		this.threadCount = threadCount;
 	}
 
+	public boolean isShutdownTaskExecutorOnCompletion() {
+		return shutdownTaskExecutorOnCompletion != null ? shutdownTaskExecutorOnCompletion : !defaultTaskExecutor;
+	}
+
+	public void setShutdownTaskExecutorOnCompletion(boolean shutdownTaskExecutorOnCompletion) {
+		this.shutdownTaskExecutorOnCompletion = shutdownTaskExecutorOnCompletion;
+	}
+
+	public int getThreadKeepAliveSeconds() {
+		return threadKeepAliveSeconds;
+	}
+
+	public void setThreadKeepAliveSeconds(int threadKeepAliveSeconds) {
+		this.threadKeepAliveSeconds = threadKeepAliveSeconds;
+	}
+
+	public BatchRetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	public void setRetryPolicy(BatchRetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	public int getMaxInFlightBatches() {
+		return maxInFlightBatches;
+	}
+
+	public void setMaxInFlightBatches(int maxInFlightBatches) {
+		this.maxInFlightBatches = maxInFlightBatches;
+		this.inFlightLimiter = null;
+	}
+
+	public long getMaxInFlightBytes() {
+		return maxInFlightBytes;
+	}
+
+	public void setMaxInFlightBytes(long maxInFlightBytes) {
+		this.maxInFlightBytes = maxInFlightBytes;
+		this.inFlightLimiter = null;
+	}
+
+	public BackpressurePolicy getBackpressurePolicy() {
+		return backpressurePolicy;
+	}
+
+	public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+		this.backpressurePolicy = backpressurePolicy;
+	}
+
+	protected InFlightLimiter getInFlightLimiter() {
+		return inFlightLimiter;
+	}
+
 	protected WriteListener getWriteListener() {
 		return writeListener;
 	}
@@ -110,4 +635,20 @@ public abstract class BatchWriterSupport extends LoggingObject implements BatchW
 	public void setWriteListener(WriteListener writeListener) {
 		this.writeListener = writeListener;
 	}
+
+	public AdaptiveBatchSizer getBatchSizer() {
+		return batchSizer;
+	}
+
+	public void setBatchSizer(AdaptiveBatchSizer batchSizer) {
+		this.batchSizer = batchSizer;
+	}
+
+	public WriteMetricsListener getMetricsListener() {
+		return metricsListener;
+	}
+
+	public void setMetricsListener(WriteMetricsListener metricsListener) {
+		this.metricsListener = metricsListener;
+	}
 }
@@ -17,6 +17,7 @@ public class DataMovementBatchWriter extends LoggingObject implements BatchWrite
 	private int batchSize = 100;
 	private int threadCount = 10;
 	private JobTicket jobTicket;
+	private WriteMetricsListener metricsListener;
 
 	public DataMovementBatchWriter(DatabaseClient client) {
 		this.client = client;
@@ -28,9 +29,41 @@ public class DataMovementBatchWriter extends LoggingObject implements BatchWrite
 		writeBatcher = this.dataMovementManager.newWriteBatcher();
 		writeBatcher.withThreadCount(threadCount);
 		writeBatcher.withBatchSize(batchSize);
+		if (metricsListener != null) {
+			addMetricsListeners(writeBatcher, metricsListener);
+		}
 		jobTicket = dataMovementManager.startJob(writeBatcher);
 	}
 
+	/**
+	 * A WriteBatcher only reports when a batch has finished, so the duration of each batch is reported as -1 and its
+	 * bytes as zero - i.e. unknown - and each batch is reported as submitted and started right before it's reported as
+	 * finished. See WriteMetrics for how this affects a snapshot.
+	 *
+	 * @param writeBatcher
+	 * @param listener
+	 */
+	protected void addMetricsListeners(WriteBatcher writeBatcher, WriteMetricsListener listener) {
+		writeBatcher.onBatchSuccess(batch -> {
+			int count = batch.getItems().length;
+			listener.onBatchSubmitted(count, 0);
+			listener.onBatchStarted(count);
+			listener.onRequestFinished(describeHost(batch.getClient()), count, -1, null);
+			listener.onBatchFinished(count, 0, -1, null);
+		});
+		writeBatcher.onBatchFailure((batch, failure) -> {
+			int count = batch.getItems().length;
+			listener.onBatchSubmitted(count, 0);
+			listener.onBatchStarted(count);
+			listener.onRequestFinished(describeHost(batch.getClient()), count, -1, failure);
+			listener.onBatchFinished(count, 0, -1, failure);
+		});
+	}
+
+	private String describeHost(DatabaseClient client) {
+		return client != null ? client.getHost() + ":" + client.getPort() : "unknown";
+	}
+
 	@Override
 	public void write(List<? extends DocumentWriteOperation> items) {
 		for (DocumentWriteOperation op : items) {
@@ -57,4 +90,12 @@ public class DataMovementBatchWriter extends LoggingObject implements BatchWrite
 	public void setThreadCount(int threadCount) {
 		this.threadCount = threadCount;
 	}
+
+	public WriteMetricsListener getMetricsListener() {
+		return metricsListener;
+	}
+
+	public void setMetricsListener(WriteMetricsListener metricsListener) {
+		this.metricsListener = metricsListener;
+	}
 }
@@ -6,18 +6,28 @@ import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.client.document.DocumentWriteSet;
 import com.marklogic.client.document.ServerTransform;
 import com.marklogic.client.ext.helper.LoggingObject;
+import com.marklogic.client.io.DocumentMetadataHandle;
 import com.marklogic.client.io.Format;
+import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
 
 import java.util.List;
 
 /**
  * Default implementation of BatchHandler that uses a DocumentManager to write documents, along with an optional
  * ServerTransform.
+ * <p>
+ * By default, when consecutive documents in a batch have equal metadata - e.g. the same collections and permissions -
+ * the metadata is added once to the DocumentWriteSet as default metadata, and those documents are added without their
+ * own metadata. This reduces the size of the request and the metadata that MarkLogic has to parse. A run of documents
+ * only shares default metadata if no later document in the batch lacks metadata, since such a document would
+ * otherwise receive the default metadata as well.
  */
 public class DefaultBatchHandler extends LoggingObject implements BatchHandler {
 
 	private Format contentFormat;
 	private ServerTransform serverTransform;
+	private boolean shareDefaultMetadata = true;
+	private int minDefaultMetadataRunLength = 2;
 
 	public DefaultBatchHandler() {
 	}
@@ -35,10 +45,8 @@ public class DefaultBatchHandler extends LoggingObject implements BatchHandler {
 		}
 
 		DocumentWriteSet set = mgr.newWriteSet();
-		for (DocumentWriteOperation item : items) {
-			set.add(item);
-		}
-		int count = set.size();
+		addToWriteSet(set, items);
+		int count = items.size();
 		if (logger.isDebugEnabled()) {
 			logger.debug("Writing " + count + " documents to MarkLogic");
 		}
@@ -56,6 +64,92 @@ public class DefaultBatchHandler extends LoggingObject implements BatchHandler {
 		return client.newDocumentManager();
 	}
 
+	/**
+	 * Adds each item to the DocumentWriteSet, using default metadata for runs of at least minDefaultMetadataRunLength
+	 * documents with equal metadata if shareDefaultMetadata is true.
+	 *
+	 * @param set
+	 * @param items
+	 */
+	protected void addToWriteSet(DocumentWriteSet set, List<? extends DocumentWriteOperation> items) {
+		final int size = items.size();
+		// Default metadata can only be used after the last document without metadata, and only for document writes
+		int firstShareable = shareDefaultMetadata ? 0 : size;
+		for (int i = 0; i < size; i++) {
+			DocumentWriteOperation item = items.get(i);
+			if (item.getMetadata() == null || item.getOperationType() != DocumentWriteOperation.OperationType.DOCUMENT_WRITE) {
+				firstShareable = i + 1;
+			}
+		}
+
+		int i = 0;
+		while (i < size) {
+			DocumentWriteOperation item = items.get(i);
+			if (i < firstShareable) {
+				set.add(item);
+				i++;
+				continue;
+			}
+
+			DocumentMetadataWriteHandle metadata = item.getMetadata();
+			int end = i + 1;
+			while (end < size && metadataEquals(metadata, items.get(end).getMetadata())) {
+				end++;
+			}
+			if (end - i >= minDefaultMetadataRunLength) {
+				set.addDefault(metadata);
+				for (int j = i; j < end; j++) {
+					DocumentWriteOperation op = items.get(j);
+					set.add(op.getUri(), op.getContent(), op.getTemporalDocumentURI());
+				}
+			} else {
+				for (int j = i; j < end; j++) {
+					set.add(items.get(j));
+				}
+			}
+			i = end;
+		}
+	}
+
+	/**
+	 * Metadata handles are only compared by value if they're DocumentMetadataHandle instances; any other kind of handle
+	 * is only equal to itself.
+	 *
+	 * @param a
+	 * @param b
+	 * @return true if both handles would result in the same metadata being written
+	 */
+	protected boolean metadataEquals(DocumentMetadataWriteHandle a, DocumentMetadataWriteHandle b) {
+		if (a == b) {
+			return true;
+		}
+		if (!(a instanceof DocumentMetadataHandle) || !(b instanceof DocumentMetadataHandle)) {
+			return false;
+		}
+		DocumentMetadataHandle m1 = (DocumentMetadataHandle) a;
+		DocumentMetadataHandle m2 = (DocumentMetadataHandle) b;
+		return m1.getQuality() == m2.getQuality()
+			&& m1.getCollections().equals(m2.getCollections())
+			&& m1.getPermissions().equals(m2.getPermissions())
+			&& m1.getMetadataValues().equals(m2.getMetadataValues())
+			&& (m1.getProperties().isEmpty() ? m2.getProperties().isEmpty() : m1.getProperties().equals(m2.getProperties()));
+	}
+
+	public boolean isShareDefaultMetadata() {
+		return shareDefaultMetadata;
+	}
+
+	public void setShareDefaultMetadata(boolean shareDefaultMetadata) {
+		this.shareDefaultMetadata = shareDefaultMetadata;
+	}
+
+	public int getMinDefaultMetadataRunLength() {
+		return minDefaultMetadataRunLength;
+	}
+
+	public void setMinDefaultMetadataRunLength(int minDefaultMetadataRunLength) {
+		this.minDefaultMetadataRunLength = minDefaultMetadataRunLength;
+	}
 
 	public void setServerTransform(ServerTransform serverTransform) {
 		this.serverTransform = serverTransform;
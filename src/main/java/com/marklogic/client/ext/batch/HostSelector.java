@@ -0,0 +1,31 @@
+package com.marklogic.client.ext.batch;
+
+/**
+ * Chooses which host - e.g. a DatabaseClient or an XCC ContentSource - a batch should be written to. Implementations
+ * must be threadsafe, as a host is selected on the thread that writes the batch, right before each attempt to write
+ * it.
+ *
+ * @param <T> the type of object that represents a host
+ */
+public interface HostSelector<T> {
+
+	T select();
+
+	/**
+	 * Called right before a request is sent to the given host.
+	 *
+	 * @param host
+	 */
+	default void onRequestStarted(T host) {
+	}
+
+	/**
+	 * Called once a request to the given host has finished.
+	 *
+	 * @param host
+	 * @param durationNanos
+	 * @param failure       null if the request succeeded
+	 */
+	default void onRequestFinished(T host, long durationNanos, Throwable failure) {
+	}
+}
@@ -0,0 +1,201 @@
+package com.marklogic.client.ext.batch;
+
+import com.marklogic.client.ext.helper.LoggingObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Support class for HostSelector implementations that keeps track of outstanding requests, latency, and failures for
+ * each host, and - if ejectionThreshold is set to a value greater than zero - temporarily ejects a host that fails
+ * ejectionThreshold requests in a row. Ejection is off by default, so every host is always selected unless it's
+ * enabled.
+ * <p>
+ * Only failures that the hostFailurePredicate considers to be the host's fault - by default, the same transient
+ * failures that BatchRetryPolicy retries - count towards ejecting a host; a malformed document does not. Once a host
+ * has been ejected for ejectionMillis, it's considered for selection again, after passing the healthCheck if one is
+ * set. A restored host is on probation, so a single failure ejects it again. If every host has been ejected, then
+ * every host is considered, so that a selection can always be made.
+ *
+ * @param <T>
+ */
+public abstract class HostSelectorSupport<T> extends LoggingObject implements HostSelector<T> {
+
+	private final List<T> hosts;
+	private final Map<T, HostState> hostStates = new IdentityHashMap<>();
+
+	private int ejectionThreshold = 0;
+	private long ejectionMillis = 30000;
+	private Predicate<Throwable> hostFailurePredicate = new BatchRetryPolicy()::isRetryable;
+	private Predicate<T> healthCheck;
+
+	protected HostSelectorSupport(List<T> hosts) {
+		if (hosts == null || hosts.isEmpty()) {
+			throw new IllegalArgumentException("At least one host must be provided");
+		}
+		this.hosts = Collections.unmodifiableList(new ArrayList<>(hosts));
+		for (T host : this.hosts) {
+			hostStates.put(host, new HostState());
+		}
+	}
+
+	@Override
+	public T select() {
+		List<T> available = new ArrayList<>(hosts.size());
+		for (T host : hosts) {
+			if (isAvailable(host)) {
+				available.add(host);
+			}
+		}
+		return select(available.isEmpty() ? hosts : available);
+	}
+
+	/**
+	 * @param candidates the hosts that are not currently ejected; never empty
+	 * @return
+	 */
+	protected abstract T select(List<T> candidates);
+
+	@Override
+	public void onRequestStarted(T host) {
+		HostState state = hostStates.get(host);
+		if (state != null) {
+			state.outstanding.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void onRequestFinished(T host, long durationNanos, Throwable failure) {
+		HostState state = hostStates.get(host);
+		if (state == null) {
+			return;
+		}
+		state.outstanding.decrementAndGet();
+		synchronized (state) {
+			state.averageLatencyNanos = state.averageLatencyNanos == 0 ? durationNanos :
+				(long) (state.averageLatencyNanos * 0.8 + durationNanos * 0.2);
+			if (failure == null) {
+				state.consecutiveFailures = 0;
+			} else if (hostFailurePredicate == null || hostFailurePredicate.test(failure)) {
+				state.consecutiveFailures++;
+				if (ejectionThreshold > 0 && state.consecutiveFailures >= ejectionThreshold && state.ejectedUntil == 0) {
+					state.ejectedUntil = System.currentTimeMillis() + ejectionMillis;
+					logger.warn(format("Ejecting host %s for %dms after %d consecutive failures; cause: %s",
+						describeHost(host), ejectionMillis, state.consecutiveFailures, failure.getMessage()));
+				}
+			}
+		}
+	}
+
+	protected boolean isAvailable(T host) {
+		HostState state = hostStates.get(host);
+		long ejectedUntil;
+		synchronized (state) {
+			ejectedUntil = state.ejectedUntil;
+		}
+		if (ejectedUntil == 0) {
+			return true;
+		}
+		if (System.currentTimeMillis() < ejectedUntil || !state.checking.compareAndSet(false, true)) {
+			return false;
+		}
+		try {
+			boolean healthy = healthCheck == null || healthCheck.test(host);
+			synchronized (state) {
+				if (healthy) {
+					state.ejectedUntil = 0;
+					state.consecutiveFailures = ejectionThreshold - 1;
+					logger.info("Restoring host: " + describeHost(host));
+				} else {
+					state.ejectedUntil = System.currentTimeMillis() + ejectionMillis;
+					logger.warn("Host failed health check, so keeping it ejected: " + describeHost(host));
+				}
+			}
+			return healthy;
+		} catch (RuntimeException ex) {
+			synchronized (state) {
+				state.ejectedUntil = System.currentTimeMillis() + ejectionMillis;
+			}
+			logger.warn("Host failed health check, so keeping it ejected: " + describeHost(host) + "; cause: " + ex.getMessage());
+			return false;
+		} finally {
+			state.checking.set(false);
+		}
+	}
+
+	/**
+	 * @param host
+	 * @return a description of the host for logging; subclasses can override this for a more useful description
+	 */
+	protected String describeHost(T host) {
+		return String.valueOf(host);
+	}
+
+	protected int getOutstandingRequests(T host) {
+		return hostStates.get(host).outstanding.get();
+	}
+
+	protected long getAverageLatencyNanos(T host) {
+		HostState state = hostStates.get(host);
+		synchronized (state) {
+			return state.averageLatencyNanos;
+		}
+	}
+
+	public boolean isEjected(T host) {
+		HostState state = hostStates.get(host);
+		synchronized (state) {
+			return state.ejectedUntil != 0;
+		}
+	}
+
+	public List<T> getHosts() {
+		return hosts;
+	}
+
+	private static class HostState {
+		private final AtomicInteger outstanding = new AtomicInteger();
+		private final AtomicBoolean checking = new AtomicBoolean();
+		private long averageLatencyNanos;
+		private int consecutiveFailures;
+		private long ejectedUntil;
+	}
+
+	public int getEjectionThreshold() {
+		return ejectionThreshold;
+	}
+
+	public void setEjectionThreshold(int ejectionThreshold) {
+		this.ejectionThreshold = ejectionThreshold;
+	}
+
+	public long getEjectionMillis() {
+		return ejectionMillis;
+	}
+
+	public void setEjectionMillis(long ejectionMillis) {
+		this.ejectionMillis = ejectionMillis;
+	}
+
+	public Predicate<Throwable> getHostFailurePredicate() {
+		return hostFailurePredicate;
+	}
+
+	public void setHostFailurePredicate(Predicate<Throwable> hostFailurePredicate) {
+		this.hostFailurePredicate = hostFailurePredicate;
+	}
+
+	public Predicate<T> getHealthCheck() {
+		return healthCheck;
+	}
+
+	public void setHealthCheck(Predicate<T> healthCheck) {
+		this.healthCheck = healthCheck;
+	}
+}
@@ -0,0 +1,69 @@
+package com.marklogic.client.ext.batch;
+
+/**
+ * Limits the number of batches - and optionally the number of bytes - that have been submitted for writing but have
+ * not yet finished. A value of zero or less for either limit means that limit is not enforced. A single batch that is
+ * larger than maxBytes is allowed through once nothing else is in flight, so that it can't be blocked forever.
+ */
+public class InFlightLimiter {
+
+	private final int maxBatches;
+	private final long maxBytes;
+
+	private int batches = 0;
+	private long bytes = 0;
+
+	public InFlightLimiter(int maxBatches, long maxBytes) {
+		this.maxBatches = maxBatches;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Blocks until the batch can be submitted without exceeding either limit.
+	 *
+	 * @param batchBytes
+	 * @throws InterruptedException
+	 */
+	public synchronized void acquire(long batchBytes) throws InterruptedException {
+		while (!hasRoomFor(batchBytes)) {
+			wait();
+		}
+		batches++;
+		bytes += batchBytes;
+	}
+
+	/**
+	 * @param batchBytes
+	 * @return true if the batch can be submitted without exceeding either limit, in which case it's counted as in
+	 * flight; false otherwise
+	 */
+	public synchronized boolean tryAcquire(long batchBytes) {
+		if (!hasRoomFor(batchBytes)) {
+			return false;
+		}
+		batches++;
+		bytes += batchBytes;
+		return true;
+	}
+
+	public synchronized void release(long batchBytes) {
+		batches--;
+		bytes -= batchBytes;
+		notifyAll();
+	}
+
+	private boolean hasRoomFor(long batchBytes) {
+		if (maxBatches > 0 && batches >= maxBatches) {
+			return false;
+		}
+		return maxBytes <= 0 || batches == 0 || bytes + batchBytes <= maxBytes;
+	}
+
+	public synchronized int getBatchesInFlight() {
+		return batches;
+	}
+
+	public synchronized long getBytesInFlight() {
+		return bytes;
+	}
+}
@@ -0,0 +1,85 @@
+package com.marklogic.client.ext.batch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Threadsafe histogram of latencies with a bounded relative error, in the spirit of HdrHistogram. Values are recorded
+ * in microseconds; values below 16 are counted exactly, and every power of two above that is divided into 8 buckets,
+ * so a percentile is never off by more than 12.5%. Recording a value is lock-free and does not allocate.
+ */
+public class LatencyHistogram {
+
+	private final static int EXACT_BUCKETS = 16;
+	private final static int SUB_BUCKETS = 8;
+	private final static int BUCKET_COUNT = EXACT_BUCKETS + (64 - 4) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	public void recordNanos(long nanos) {
+		if (nanos < 0) {
+			return;
+		}
+		long micros = nanos / 1000;
+		counts.incrementAndGet(bucketIndex(micros));
+		totalCount.increment();
+		totalMicros.add(micros);
+		maxMicros.accumulateAndGet(micros, Math::max);
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the latency in milliseconds at the given percentile, or zero if nothing has been recorded
+	 */
+	public double getPercentileMillis(double percentile) {
+		long total = totalCount.sum();
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return Math.min(bucketUpperBound(i), maxMicros.get()) / 1000.0;
+			}
+		}
+		return maxMicros.get() / 1000.0;
+	}
+
+	public double getMeanMillis() {
+		long total = totalCount.sum();
+		return total == 0 ? 0 : totalMicros.sum() / 1000.0 / total;
+	}
+
+	public double getMaxMillis() {
+		return maxMicros.get() / 1000.0;
+	}
+
+	public long getCount() {
+		return totalCount.sum();
+	}
+
+	static int bucketIndex(long value) {
+		if (value < EXACT_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+		return EXACT_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket;
+	}
+
+	static long bucketUpperBound(int index) {
+		if (index < EXACT_BUCKETS) {
+			return index;
+		}
+		int exponent = (index - EXACT_BUCKETS) / SUB_BUCKETS + 4;
+		int subBucket = (index - EXACT_BUCKETS) % SUB_BUCKETS;
+		long lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - 3);
+		return lowerBound + (1L << (exponent - 3)) - 1;
+	}
+}
@@ -0,0 +1,40 @@
+package com.marklogic.client.ext.batch;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects the host with the fewest outstanding requests. Ties are broken by choosing the host with the lowest
+ * average latency, and then in round-robin fashion, so that a host that's slower than the rest receives fewer
+ * requests instead of holding up the whole job.
+ *
+ * @param <T>
+ */
+public class LeastOutstandingHostSelector<T> extends HostSelectorSupport<T> {
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	public LeastOutstandingHostSelector(List<T> hosts) {
+		super(hosts);
+	}
+
+	@Override
+	protected T select(List<T> candidates) {
+		final int size = candidates.size();
+		final int offset = Math.floorMod(counter.getAndIncrement(), size);
+		T best = null;
+		int bestOutstanding = Integer.MAX_VALUE;
+		long bestLatency = Long.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			T host = candidates.get((offset + i) % size);
+			int outstanding = getOutstandingRequests(host);
+			long latency = getAverageLatencyNanos(host);
+			if (outstanding < bestOutstanding || (outstanding == bestOutstanding && latency < bestLatency)) {
+				best = host;
+				bestOutstanding = outstanding;
+				bestLatency = latency;
+			}
+		}
+		return best;
+	}
+}
@@ -15,11 +15,15 @@ import java.util.List;
  * <p>
  * To customize what this does with every batch, you can set a new instance of BatchHandler. This class defaults to using
  * DefaultBatchHandler; it'll pass its instances of Format and ServerTransform to that class.
+ * <p>
+ * The DatabaseClient for each batch is chosen by a HostSelector, which defaults to a threadsafe round-robin. Set a
+ * LeastOutstandingHostSelector to send fewer batches to a slow host. Neither ejects a failing host unless its
+ * ejectionThreshold is set.
  */
 public class RestBatchWriter extends BatchWriterSupport {
 
 	private List<DatabaseClient> databaseClients;
-	private int clientIndex = 0;
+	private HostSelector<DatabaseClient> hostSelector;
 	private boolean releaseDatabaseClients = true;
 
 	private Format contentFormat;
@@ -42,9 +46,14 @@ public class RestBatchWriter extends BatchWriterSupport {
 	@Override
 	public void write(List<? extends DocumentWriteOperation> items) {
 		initialize();
-		DatabaseClient client = determineDatabaseClientToUse();
-		Runnable runnable = buildRunnable(client, items);
-		executeRunnable(runnable, items);
+		writeInBatches(items, batch -> {
+			Runnable runnable = buildRetryingRunnable(batch, documents -> () -> {
+				// The client is selected right before each attempt so that a retry can go to a different host
+				DatabaseClient client = determineDatabaseClientToUse();
+				runOnHost(getHostSelector(), client, documents, buildRunnable(client, documents));
+			});
+			executeRunnable(runnable, batch);
+		});
 	}
 
 	@Override
@@ -59,12 +68,35 @@ public class RestBatchWriter extends BatchWriterSupport {
 	}
 
 	protected DatabaseClient determineDatabaseClientToUse() {
-		if (clientIndex >= databaseClients.size()) {
-			clientIndex = 0;
+		return getHostSelector().select();
+	}
+
+	@Override
+	protected String describeHost(Object host) {
+		if (host instanceof DatabaseClient) {
+			DatabaseClient client = (DatabaseClient) host;
+			return client.getHost() + ":" + client.getPort();
+		}
+		return super.describeHost(host);
+	}
+
+	/**
+	 * @return the HostSelector for choosing a DatabaseClient; defaults to a RoundRobinHostSelector
+	 */
+	public synchronized HostSelector<DatabaseClient> getHostSelector() {
+		if (hostSelector == null) {
+			hostSelector = new RoundRobinHostSelector<DatabaseClient>(databaseClients) {
+				@Override
+				protected String describeHost(DatabaseClient host) {
+					return RestBatchWriter.this.describeHost(host);
+				}
+			};
 		}
-		DatabaseClient client = databaseClients.get(clientIndex);
-		clientIndex++;
-		return client;
+		return hostSelector;
+	}
+
+	public synchronized void setHostSelector(HostSelector<DatabaseClient> hostSelector) {
+		this.hostSelector = hostSelector;
 	}
 
 	protected Runnable buildRunnable(final DatabaseClient client, final List<? extends DocumentWriteOperation> items) {
@@ -81,6 +113,8 @@ public class RestBatchWriter extends BatchWriterSupport {
 		super.waitForCompletion();
 
 		if (databaseClients != null && releaseDatabaseClients) {
+			// The clients can't be used by another job, so there's no reason to keep the threads for one
+			shutdownTaskExecutor();
 			logger.info("Releasing DatabaseClient instances...");
 			for (DatabaseClient client : databaseClients) {
 				client.release();
@@ -101,8 +135,19 @@ public class RestBatchWriter extends BatchWriterSupport {
 		return databaseClients;
 	}
 
+	/**
+	 * @return the index of the DatabaseClient that the default RoundRobinHostSelector will select next, or 0 if a
+	 * different HostSelector has been set
+	 * @deprecated a DatabaseClient is now chosen by the HostSelector; override determineDatabaseClientToUse or set a
+	 * HostSelector instead
+	 */
+	@Deprecated
 	protected int getClientIndex() {
-		return clientIndex;
+		HostSelector<DatabaseClient> selector = getHostSelector();
+		if (selector instanceof RoundRobinHostSelector) {
+			return ((RoundRobinHostSelector<DatabaseClient>) selector).getNextIndex();
+		}
+		return 0;
 	}
 
 	protected boolean isReleaseDatabaseClients() {
@@ -0,0 +1,30 @@
+package com.marklogic.client.ext.batch;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threadsafe round-robin selection of the hosts that are not currently ejected.
+ *
+ * @param <T>
+ */
+public class RoundRobinHostSelector<T> extends HostSelectorSupport<T> {
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	public RoundRobinHostSelector(List<T> hosts) {
+		super(hosts);
+	}
+
+	@Override
+	protected T select(List<T> candidates) {
+		return candidates.get(Math.floorMod(counter.getAndIncrement(), candidates.size()));
+	}
+
+	/**
+	 * @return the index of the host that will be selected next, assuming that no host is ejected
+	 */
+	public int getNextIndex() {
+		return Math.floorMod(counter.get(), getHosts().size());
+	}
+}
@@ -0,0 +1,104 @@
+package com.marklogic.client.ext.batch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WriteMetricsListener that collects counts, throughput, and latency histograms - both overall and per host - and can
+ * provide a WriteMetricsSnapshot of them at any time. Throughput is measured from when the first batch was submitted.
+ * Set the same instance on multiple BatchWriters to collect metrics across all of them.
+ * <p>
+ * Not every BatchWriter reports every value. A batch whose duration is reported as -1 is left out of the latency
+ * histograms, and a batch whose bytes are reported as zero adds nothing to bytesWritten. DataMovementBatchWriter is
+ * only told when a batch has finished, so it reports neither durations nor bytes. For that writer, the snapshot's
+ * latencies, bytesWritten, and bytes per second are always zero, which means unavailable rather than measured, and
+ * throughput is measured from when the first batch finished.
+ */
+public class WriteMetrics implements WriteMetricsListener {
+
+	private final AtomicLong startNanos = new AtomicLong();
+
+	private final LongAdder batchesSubmitted = new LongAdder();
+	private final LongAdder batchesStarted = new LongAdder();
+	private final LongAdder batchesSucceeded = new LongAdder();
+	private final LongAdder batchesFailed = new LongAdder();
+	private final LongAdder documentsWritten = new LongAdder();
+	private final LongAdder documentsFailed = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LatencyHistogram batchLatency = new LatencyHistogram();
+
+	private final Map<String, HostMetrics> hostMetrics = new ConcurrentHashMap<>();
+
+	@Override
+	public void onBatchSubmitted(int documentCount, long bytes) {
+		startNanos.compareAndSet(0, System.nanoTime());
+		batchesSubmitted.increment();
+	}
+
+	@Override
+	public void onBatchStarted(int documentCount) {
+		batchesStarted.increment();
+	}
+
+	@Override
+	public void onBatchFinished(int documentCount, long bytes, long durationNanos, Throwable failure) {
+		startNanos.compareAndSet(0, System.nanoTime());
+		if (failure == null) {
+			batchesSucceeded.increment();
+			documentsWritten.add(documentCount);
+			bytesWritten.add(bytes);
+		} else {
+			batchesFailed.increment();
+			documentsFailed.add(documentCount);
+		}
+		batchLatency.recordNanos(durationNanos);
+	}
+
+	@Override
+	public void onRequestFinished(String host, int documentCount, long durationNanos, Throwable failure) {
+		HostMetrics metrics = hostMetrics.computeIfAbsent(host, h -> new HostMetrics());
+		metrics.requests.increment();
+		if (failure != null) {
+			metrics.failures.increment();
+		}
+		metrics.latency.recordNanos(durationNanos);
+	}
+
+	@Override
+	public void onBatchRetry(int documentCount, Throwable failure) {
+		retries.increment();
+	}
+
+	public WriteMetricsSnapshot snapshot() {
+		long start = startNanos.get();
+		long elapsedNanos = start == 0 ? 0 : System.nanoTime() - start;
+		long submitted = batchesSubmitted.sum();
+		long started = batchesStarted.sum();
+		long succeeded = batchesSucceeded.sum();
+		long failed = batchesFailed.sum();
+
+		Map<String, WriteMetricsSnapshot.HostSnapshot> hosts = new LinkedHashMap<>();
+		for (Map.Entry<String, HostMetrics> entry : new TreeMap<>(hostMetrics).entrySet()) {
+			HostMetrics metrics = entry.getValue();
+			hosts.put(entry.getKey(), new WriteMetricsSnapshot.HostSnapshot(metrics.requests.sum(),
+				metrics.failures.sum(), metrics.latency.getPercentileMillis(50), metrics.latency.getPercentileMillis(99)));
+		}
+
+		return new WriteMetricsSnapshot(elapsedNanos / 1000000, submitted, succeeded, failed,
+			documentsWritten.sum(), documentsFailed.sum(), bytesWritten.sum(), retries.sum(),
+			Math.max(0, submitted - succeeded - failed), Math.max(0, submitted - started),
+			batchLatency.getPercentileMillis(50), batchLatency.getPercentileMillis(90),
+			batchLatency.getPercentileMillis(99), batchLatency.getMaxMillis(), hosts);
+	}
+
+	private static class HostMetrics {
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LatencyHistogram latency = new LatencyHistogram();
+	}
+}
@@ -0,0 +1,60 @@
+package com.marklogic.client.ext.batch;
+
+/**
+ * Listener for the progress of the batches written by a BatchWriter, for collecting metrics such as latency and
+ * throughput. Every method has an empty default implementation so an implementation only needs to override what it's
+ * interested in. Methods are called from whichever thread the event occurs on, so implementations must be threadsafe
+ * and should return quickly.
+ * <p>
+ * WriteMetrics is an implementation that collects all of these into a snapshot.
+ */
+public interface WriteMetricsListener {
+
+	/**
+	 * A batch was handed to the TaskExecutor, and may be waiting in its queue.
+	 *
+	 * @param documentCount
+	 * @param bytes         estimated number of bytes in the batch; zero if unknown
+	 */
+	default void onBatchSubmitted(int documentCount, long bytes) {
+	}
+
+	/**
+	 * A thread has started writing a batch that was previously submitted.
+	 *
+	 * @param documentCount
+	 */
+	default void onBatchStarted(int documentCount) {
+	}
+
+	/**
+	 * A batch has finished, including any retries.
+	 *
+	 * @param documentCount
+	 * @param bytes
+	 * @param durationNanos time from when the batch was started until it finished, or -1 if not known
+	 * @param failure       null if the batch was written successfully
+	 */
+	default void onBatchFinished(int documentCount, long bytes, long durationNanos, Throwable failure) {
+	}
+
+	/**
+	 * A single request - i.e. one attempt at writing all or part of a batch - to a host has finished.
+	 *
+	 * @param host
+	 * @param documentCount
+	 * @param durationNanos
+	 * @param failure       null if the request succeeded
+	 */
+	default void onRequestFinished(String host, int documentCount, long durationNanos, Throwable failure) {
+	}
+
+	/**
+	 * A batch is about to be retried due to a transient failure.
+	 *
+	 * @param documentCount
+	 * @param failure
+	 */
+	default void onBatchRetry(int documentCount, Throwable failure) {
+	}
+}
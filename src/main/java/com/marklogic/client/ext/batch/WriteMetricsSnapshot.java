@@ -0,0 +1,166 @@
+package com.marklogic.client.ext.batch;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable point-in-time view of the metrics collected by WriteMetrics. Latencies are in milliseconds and are
+ * measured per batch, including any retries; per-host latencies are measured per request.
+ */
+public class WriteMetricsSnapshot {
+
+	private final long elapsedMillis;
+	private final long batchesSubmitted;
+	private final long batchesSucceeded;
+	private final long batchesFailed;
+	private final long documentsWritten;
+	private final long documentsFailed;
+	private final long bytesWritten;
+	private final long retries;
+	private final long batchesInFlight;
+	private final long batchesQueued;
+	private final double p50LatencyMillis;
+	private final double p90LatencyMillis;
+	private final double p99LatencyMillis;
+	private final double maxLatencyMillis;
+	private final Map<String, HostSnapshot> hosts;
+
+	public WriteMetricsSnapshot(long elapsedMillis, long batchesSubmitted, long batchesSucceeded, long batchesFailed,
+	                            long documentsWritten, long documentsFailed, long bytesWritten, long retries,
+	                            long batchesInFlight, long batchesQueued, double p50LatencyMillis,
+	                            double p90LatencyMillis, double p99LatencyMillis, double maxLatencyMillis,
+	                            Map<String, HostSnapshot> hosts) {
+		this.elapsedMillis = elapsedMillis;
+		this.batchesSubmitted = batchesSubmitted;
+		this.batchesSucceeded = batchesSucceeded;
+		this.batchesFailed = batchesFailed;
+		this.documentsWritten = documentsWritten;
+		this.documentsFailed = documentsFailed;
+		this.bytesWritten = bytesWritten;
+		this.retries = retries;
+		this.batchesInFlight = batchesInFlight;
+		this.batchesQueued = batchesQueued;
+		this.p50LatencyMillis = p50LatencyMillis;
+		this.p90LatencyMillis = p90LatencyMillis;
+		this.p99LatencyMillis = p99LatencyMillis;
+		this.maxLatencyMillis = maxLatencyMillis;
+		this.hosts = Collections.unmodifiableMap(hosts);
+	}
+
+	public double getDocumentsPerSecond() {
+		return elapsedMillis > 0 ? documentsWritten * 1000.0 / elapsedMillis : 0;
+	}
+
+	public double getBytesPerSecond() {
+		return elapsedMillis > 0 ? bytesWritten * 1000.0 / elapsedMillis : 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("documents: %d written, %d failed; %.1f docs/sec, %.1f bytes/sec; batches: %d submitted, " +
+				"%d succeeded, %d failed, %d in flight, %d queued, %d retries; latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f; hosts: %s",
+			documentsWritten, documentsFailed, getDocumentsPerSecond(), getBytesPerSecond(), batchesSubmitted,
+			batchesSucceeded, batchesFailed, batchesInFlight, batchesQueued, retries, p50LatencyMillis, p90LatencyMillis,
+			p99LatencyMillis, maxLatencyMillis, hosts);
+	}
+
+	/**
+	 * Metrics for the requests sent to a single host.
+	 */
+	public static class HostSnapshot {
+
+		private final long requests;
+		private final long failures;
+		private final double p50LatencyMillis;
+		private final double p99LatencyMillis;
+
+		public HostSnapshot(long requests, long failures, double p50LatencyMillis, double p99LatencyMillis) {
+			this.requests = requests;
+			this.failures = failures;
+			this.p50LatencyMillis = p50LatencyMillis;
+			this.p99LatencyMillis = p99LatencyMillis;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("{requests: %d, failures: %d, p50: %.1f, p99: %.1f}", requests, failures,
+				p50LatencyMillis, p99LatencyMillis);
+		}
+
+		public long getRequests() {
+			return requests;
+		}
+
+		public long getFailures() {
+			return failures;
+		}
+
+		public double getP50LatencyMillis() {
+			return p50LatencyMillis;
+		}
+
+		public double getP99LatencyMillis() {
+			return p99LatencyMillis;
+		}
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public long getBatchesSubmitted() {
+		return batchesSubmitted;
+	}
+
+	public long getBatchesSucceeded() {
+		return batchesSucceeded;
+	}
+
+	public long getBatchesFailed() {
+		return batchesFailed;
+	}
+
+	public long getDocumentsWritten() {
+		return documentsWritten;
+	}
+
+	public long getDocumentsFailed() {
+		return documentsFailed;
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public long getRetries() {
+		return retries;
+	}
+
+	public long getBatchesInFlight() {
+		return batchesInFlight;
+	}
+
+	public long getBatchesQueued() {
+		return batchesQueued;
+	}
+
+	public double getP50LatencyMillis() {
+		return p50LatencyMillis;
+	}
+
+	public double getP90LatencyMillis() {
+		return p90LatencyMillis;
+	}
+
+	public double getP99LatencyMillis() {
+		return p99LatencyMillis;
+	}
+
+	public double getMaxLatencyMillis() {
+		return maxLatencyMillis;
+	}
+
+	public Map<String, HostSnapshot> getHosts() {
+		return hosts;
+	}
+}
@@ -5,21 +5,38 @@ import com.marklogic.client.ext.xcc.DefaultDocumentWriteOperationAdapter;
 import com.marklogic.client.ext.xcc.DocumentWriteOperationAdapter;
 import com.marklogic.xcc.Content;
 import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.RequestOptions;
 import com.marklogic.xcc.Session;
 import com.marklogic.xcc.exceptions.RequestException;
+import com.marklogic.xcc.template.SessionPool;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * XCC implementation for batched writes. Most important thing here is we depend on an instance of
  * DocumentWriteOperationAdapter to adapt a DocumentWriteOperation instance into a Content instance.
+ * <p>
+ * The ContentSource for each batch is chosen by a HostSelector, which defaults to a threadsafe round-robin. Set a
+ * LeastOutstandingHostSelector to send fewer batches to a slow host.
+ * <p>
+ * By default, a new Session is created and closed for every batch. Set pooledSessions to true to instead reuse
+ * Sessions from a SessionPool for each ContentSource; the pools are closed in waitForCompletion. The requestOptions, if
+ * set, are applied to every Session, pooled or not.
  */
 public class XccBatchWriter extends BatchWriterSupport {
 
 	private List<ContentSource> contentSources;
-	private int contentSourceIndex = 0;
+	private HostSelector<ContentSource> hostSelector;
 	private DocumentWriteOperationAdapter documentWriteOperationAdapter;
 
+	private boolean pooledSessions = false;
+	private RequestOptions requestOptions;
+	private int maxIdleSessionsPerHost = 16;
+	private String validationQuery;
+	private Map<ContentSource, SessionPool> sessionPools = new ConcurrentHashMap<>();
+
 	public XccBatchWriter(List<ContentSource> contentSources) {
 		this.contentSources = contentSources;
 		this.documentWriteOperationAdapter = new DefaultDocumentWriteOperationAdapter();
@@ -27,47 +44,148 @@ public class XccBatchWriter extends BatchWriterSupport {
 
 	@Override
 	public void write(final List<? extends DocumentWriteOperation> items) {
-		ContentSource contentSource = determineContentSourceToUse();
-		Runnable runnable = buildRunnable(contentSource, items);
-		executeRunnable(runnable, items);
+		writeInBatches(items, batch -> {
+			Runnable runnable = buildRetryingRunnable(batch, documents -> () -> {
+				// The ContentSource is selected right before each attempt so that a retry can go to a different host
+				ContentSource contentSource = determineContentSourceToUse();
+				runOnHost(getHostSelector(), contentSource, documents, buildRunnable(contentSource, documents));
+			});
+			executeRunnable(runnable, batch);
+		});
 	}
 
 	protected ContentSource determineContentSourceToUse() {
-		if (contentSourceIndex >= contentSources.size()) {
-			contentSourceIndex = 0;
+		return getHostSelector().select();
+	}
+
+	/**
+	 * @return the HostSelector for choosing a ContentSource; defaults to a RoundRobinHostSelector
+	 */
+	public synchronized HostSelector<ContentSource> getHostSelector() {
+		if (hostSelector == null) {
+			hostSelector = new RoundRobinHostSelector<>(contentSources);
 		}
-		ContentSource contentSource = contentSources.get(contentSourceIndex);
-		contentSourceIndex++;
-		return contentSource;
+		return hostSelector;
+	}
+
+	public synchronized void setHostSelector(HostSelector<ContentSource> hostSelector) {
+		this.hostSelector = hostSelector;
 	}
 
 	protected Runnable buildRunnable(final ContentSource contentSource, final List<? extends DocumentWriteOperation> items) {
 		return new Runnable() {
 			@Override
 			public void run() {
-				Session session = contentSource.newSession();
 				int count = items.size();
 				Content[] array = new Content[count];
-				for (int i = 0; i < count; i++) {
-					array[i] = documentWriteOperationAdapter.adapt(items.get(i));
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Writing " + count + " documents to MarkLogic");
-				}
 				try {
-					session.insertContent(array);
-					if (logger.isInfoEnabled()) {
-						logger.info("Wrote " + count + " documents to MarkLogic");
+					for (int i = 0; i < count; i++) {
+						array[i] = documentWriteOperationAdapter.adapt(items.get(i));
+					}
+					if (logger.isDebugEnabled()) {
+						logger.debug("Writing " + count + " documents to MarkLogic");
+					}
+					Session session = openSession(contentSource);
+					boolean broken = false;
+					try {
+						session.insertContent(array);
+						if (logger.isInfoEnabled()) {
+							logger.info("Wrote " + count + " documents to MarkLogic");
+						}
+					} catch (RequestException e) {
+						broken = SessionPool.isConnectionFailure(e);
+						throw new RuntimeException("Unable to insert content: " + e.getMessage(), e);
+					} finally {
+						closeSession(contentSource, session, broken);
 					}
-				} catch (RequestException e) {
-					throw new RuntimeException("Unable to insert content: " + e.getMessage(), e);
 				} finally {
-					session.close();
+					// Releases any resources held by the Content, such as a temporary file
+					for (Content content : array) {
+						if (content != null) {
+							content.close();
+						}
+					}
 				}
 			}
 		};
 	}
 
+	/**
+	 * @param contentSource
+	 * @return a Session from the SessionPool for the ContentSource if pooledSessions is true; otherwise, a new Session
+	 */
+	protected Session openSession(ContentSource contentSource) {
+		if (pooledSessions) {
+			return sessionPools.computeIfAbsent(contentSource, this::newSessionPool).borrowSession();
+		}
+		Session session = contentSource.newSession();
+		if (requestOptions != null) {
+			session.setDefaultRequestOptions(requestOptions);
+		}
+		return session;
+	}
+
+	protected void closeSession(ContentSource contentSource, Session session, boolean broken) {
+		SessionPool pool = pooledSessions ? sessionPools.get(contentSource) : null;
+		if (pool != null) {
+			pool.releaseSession(session, broken);
+		} else {
+			session.close();
+		}
+	}
+
+	protected SessionPool newSessionPool(ContentSource contentSource) {
+		SessionPool pool = new SessionPool(contentSource);
+		pool.setRequestOptions(requestOptions);
+		pool.setMaxIdleSessions(maxIdleSessionsPerHost);
+		pool.setValidationQuery(validationQuery);
+		return pool;
+	}
+
+	/**
+	 * Waits for every batch to be written, and then closes any pooled Sessions.
+	 */
+	@Override
+	public void waitForCompletion() {
+		super.waitForCompletion();
+		for (SessionPool pool : sessionPools.values()) {
+			pool.close();
+		}
+		sessionPools.clear();
+	}
+
+	public boolean isPooledSessions() {
+		return pooledSessions;
+	}
+
+	public void setPooledSessions(boolean pooledSessions) {
+		this.pooledSessions = pooledSessions;
+	}
+
+	public RequestOptions getRequestOptions() {
+		return requestOptions;
+	}
+
+	public void setRequestOptions(RequestOptions requestOptions) {
+		this.requestOptions = requestOptions;
+	}
+
+	public int getMaxIdleSessionsPerHost() {
+		return maxIdleSessionsPerHost;
+	}
+
+	public void setMaxIdleSessionsPerHost(int maxIdleSessionsPerHost) {
+		this.maxIdleSessionsPerHost = maxIdleSessionsPerHost;
+	}
+
+	public String getValidationQuery() {
+		return validationQuery;
+	}
+
+	public void setValidationQuery(String validationQuery) {
+		this.validationQuery = validationQuery;
+	}
+
 	public void setDocumentWriteOperationAdapter(DocumentWriteOperationAdapter documentWriteOperationAdapter) {
 		this.documentWriteOperationAdapter = documentWriteOperationAdapter;
 	}
@@ -3,6 +3,7 @@ package com.marklogic.client.ext.file;
 import com.marklogic.client.ext.helper.LoggingObject;
 import org.springframework.util.ClassUtils;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -59,6 +60,28 @@ public abstract class AbstractDocumentFileReader extends LoggingObject {
 		return documentFile;
 	}
 
+	/**
+	 * Lets each DirectoryAwareDocumentFileProcessor do its per-directory work before any file in the directory is
+	 * processed.
+	 *
+	 * @param directory
+	 */
+	protected void enterDirectory(File directory) {
+		for (DocumentFileProcessor processor : documentFileProcessors) {
+			if (processor instanceof DirectoryAwareDocumentFileProcessor) {
+				((DirectoryAwareDocumentFileProcessor) processor).enterDirectory(directory);
+			}
+		}
+	}
+
+	protected void exitDirectory(File directory) {
+		for (DocumentFileProcessor processor : documentFileProcessors) {
+			if (processor instanceof DirectoryAwareDocumentFileProcessor) {
+				((DirectoryAwareDocumentFileProcessor) processor).exitDirectory(directory);
+			}
+		}
+	}
+
 	public List<DocumentFileProcessor> getDocumentFileProcessors() {
 		return documentFileProcessors;
 	}
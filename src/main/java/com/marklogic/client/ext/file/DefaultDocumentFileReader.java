@@ -9,6 +9,7 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Non-threadsafe implementation that implements FileVisitor as a way of descending one or more file paths.
@@ -17,7 +18,7 @@ public class DefaultDocumentFileReader extends AbstractDocumentFileReader implem
 
 	private Path currentRootPath;
 	private List<FileFilter> fileFilters;
-	private List<DocumentFile> documentFiles;
+	private Consumer<DocumentFile> documentFileConsumer;
 	private String uriPrefix = "/";
 
 	// Each of these are eagerly instantiated, and we retain a reference in case a client wants to modify them
@@ -40,7 +41,21 @@ public class DefaultDocumentFileReader extends AbstractDocumentFileReader implem
 	 * @return
 	 */
 	public List<DocumentFile> readDocumentFiles(String... paths) {
-		documentFiles = new ArrayList<>();
+		List<DocumentFile> documentFiles = new ArrayList<>();
+		readDocumentFiles(documentFiles::add, paths);
+		return documentFiles;
+	}
+
+	/**
+	 * Walk the file tree at each of the given paths, handing each DocumentFile to the given Consumer as soon as it's
+	 * been processed. This allows a client to start writing documents before the walk has finished.
+	 *
+	 * @param consumer
+	 * @param paths
+	 */
+	@Override
+	public void readDocumentFiles(Consumer<DocumentFile> consumer, String... paths) {
+		this.documentFileConsumer = consumer;
 		for (String path : paths) {
 			if (logger.isDebugEnabled()) {
 				logger.debug(format("Finding files at path: %s", path));
@@ -59,6 +74,57 @@ public class DefaultDocumentFileReader extends AbstractDocumentFileReader implem
 				}
 			}
 		}
+	}
+
+	/**
+	 * Reads only the given files instead of walking the whole of rootPath - e.g. files that are known to have changed.
+	 * The same FileFilter and DocumentFileProcessor instances are applied, including to each directory between rootPath
+	 * and a file, so that each DocumentFile is the same as it would be if rootPath were walked. Files that don't exist or
+	 * aren't under rootPath are skipped.
+	 *
+	 * @param rootPath the path that the URI of each file is determined relative to
+	 * @param files
+	 * @return
+	 */
+	public List<DocumentFile> readDocumentFiles(Path rootPath, List<Path> files) {
+		List<DocumentFile> documentFiles = new ArrayList<>();
+		this.documentFileConsumer = documentFiles::add;
+		this.currentRootPath = rootPath.toAbsolutePath().normalize();
+		for (Path file : files) {
+			Path path = file.toAbsolutePath().normalize();
+			if (!path.startsWith(currentRootPath) || !Files.isRegularFile(path)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(format("Skipping file that isn't under %s: %s", currentRootPath, path));
+				}
+				continue;
+			}
+
+			List<Path> dirs = new ArrayList<>();
+			for (Path dir = path.getParent(); dir != null && dir.startsWith(currentRootPath); dir = dir.getParent()) {
+				dirs.add(0, dir);
+			}
+			int entered = 0;
+			try {
+				boolean accepted = true;
+				for (Path dir : dirs) {
+					if (!acceptPath(dir, Files.readAttributes(dir, BasicFileAttributes.class))) {
+						accepted = false;
+						break;
+					}
+					enterDirectory(dir.toFile());
+					entered++;
+				}
+				if (accepted) {
+					visitFile(path, Files.readAttributes(path, BasicFileAttributes.class));
+				}
+			} catch (IOException ie) {
+				logger.warn(format("Unable to read file: %s; cause: %s", path, ie.getMessage()));
+			} finally {
+				for (int i = entered - 1; i >= 0; i--) {
+					exitDirectory(dirs.get(i).toFile());
+				}
+			}
+		}
 		return documentFiles;
 	}
 
@@ -90,6 +156,7 @@ public class DefaultDocumentFileReader extends AbstractDocumentFileReader implem
 			if (logger.isDebugEnabled()) {
 				logger.debug("Visiting directory: " + dir);
 			}
+			enterDirectory(dir.toFile());
 			return FileVisitResult.CONTINUE;
 		} else {
 			if (logger.isDebugEnabled()) {
@@ -112,6 +179,7 @@ public class DefaultDocumentFileReader extends AbstractDocumentFileReader implem
 		if (exc != null) {
 			logger.warn("Error in postVisitDirectory: " + exc.getMessage(), exc);
 		}
+		exitDirectory(dir.toFile());
 		return FileVisitResult.CONTINUE;
 	}
 
@@ -119,9 +187,10 @@ public class DefaultDocumentFileReader extends AbstractDocumentFileReader implem
 	public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
 		if (acceptPath(path, attrs)) {
 			DocumentFile documentFile = buildDocumentFile(path, currentRootPath);
+			documentFile.setFileSize(attrs.size());
 			documentFile = processDocumentFile(documentFile);
 			if (documentFile != null) {
-				this.documentFiles.add(documentFile);
+				this.documentFileConsumer.accept(documentFile);
 			}
 		}
 		return FileVisitResult.CONTINUE;
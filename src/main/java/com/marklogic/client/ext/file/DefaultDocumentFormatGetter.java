@@ -3,12 +3,27 @@ package com.marklogic.client.ext.file;
 import com.marklogic.client.io.Format;
 import org.springframework.core.io.Resource;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Default impl. Feel free to enhance this, subclass it, or roll your own.
+ * <p>
+ * The extension lists are compiled into a map from extension to Format, and a Format is determined by looking up each
+ * extension of a filename, starting with the longest - e.g. for "data.tar.gz", "tar.gz" is looked up before "gz". This
+ * allows for multi-part extensions to be configured. Extensions may be configured with or without a leading period,
+ * and are matched without regard to case. If an extension is in more than one list, XML wins over JSON, which wins over
+ * binary. The Format for each distinct extension is cached.
+ * <p>
+ * A file with no extension is treated as text, unless sniffExtensionlessFiles is set to true, in which case the first
+ * few bytes of the file are used to guess whether it's binary, XML, JSON, or text.
  */
 public class DefaultDocumentFormatGetter implements FormatGetter {
 
@@ -18,9 +33,19 @@ public class DefaultDocumentFormatGetter implements FormatGetter {
 	public final static String[] DEFAULT_XML_EXTENSIONS = new String[]{"xml", "xsl", "xslt", "xsd", "tdex"};
 	public final static String[] DEFAULT_JSON_EXTENSIONS = new String[]{"json", "tdej"};
 
-	private List<String> binaryExtensions = new ArrayList<String>();
-	private List<String> xmlExtensions = new ArrayList<>();
-	private List<String> jsonExtensions = new ArrayList<>();
+	public final static int DEFAULT_SNIFF_LENGTH = 512;
+
+	private final static int MAX_CACHED_EXTENSIONS = 1024;
+
+	private ExtensionList binaryExtensions = new ExtensionList();
+	private ExtensionList xmlExtensions = new ExtensionList();
+	private ExtensionList jsonExtensions = new ExtensionList();
+
+	private boolean sniffExtensionlessFiles = false;
+	private int sniffLength = DEFAULT_SNIFF_LENGTH;
+
+	// Rebuilt whenever one of the extension lists is modified
+	private volatile ExtensionIndex extensionIndex;
 
 	public DefaultDocumentFormatGetter() {
 		for (String ext : DEFAULT_BINARY_EXTENSIONS) {
@@ -37,27 +62,210 @@ public class DefaultDocumentFormatGetter implements FormatGetter {
 	@Override
 	public Format getFormat(Resource resource) {
 		String name = resource.getFilename();
+		int firstDot = name != null ? name.indexOf('.') : -1;
+		if (firstDot < 0 || firstDot == name.length() - 1) {
+			return sniffExtensionlessFiles ? sniffFormat(resource) : Format.TEXT;
+		}
+
+		// Everything after the first period; this is what's cached, as it's the same for every file with the same
+		// extensions
+		String extensions = name.substring(firstDot + 1);
+		return getExtensionIndex().getFormat(extensions);
+	}
 
-		for (String ext : xmlExtensions) {
-			if (name.endsWith(ext)) {
-				return Format.XML;
+	/**
+	 * Guesses the Format of a resource based on its first sniffLength bytes. Known binary signatures and content with a
+	 * null byte are considered binary; otherwise, content starting with "&lt;" is XML, content starting with "{" or "["
+	 * is JSON, and anything else is text.
+	 *
+	 * @param resource
+	 * @return
+	 */
+	protected Format sniffFormat(Resource resource) {
+		byte[] bytes = new byte[sniffLength];
+		int length = 0;
+		try (InputStream in = resource.getInputStream()) {
+			int read;
+			while (length < bytes.length && (read = in.read(bytes, length, bytes.length - length)) != -1) {
+				length += read;
 			}
+		} catch (IOException ex) {
+			return Format.TEXT;
 		}
 
-		for (String ext : jsonExtensions) {
-			if (name.endsWith(ext)) {
-				return Format.JSON;
-			}
+		if (startsWith(bytes, length, 0x1F, 0x8B) // gzip
+			|| startsWith(bytes, length, 'P', 'K', 0x03, 0x04) // zip, jar
+			|| startsWith(bytes, length, 0x89, 'P', 'N', 'G')
+			|| startsWith(bytes, length, 'G', 'I', 'F', '8')
+			|| startsWith(bytes, length, 0xFF, 0xD8, 0xFF) // jpeg
+			|| startsWith(bytes, length, '%', 'P', 'D', 'F')) {
+			return Format.BINARY;
 		}
 
-		boolean isBinary = false;
-		for (String ext : binaryExtensions) {
-			if (name.endsWith(ext)) {
-				isBinary = true;
+		int start = startsWith(bytes, length, 0xEF, 0xBB, 0xBF) ? 3 : 0;
+		for (int i = start; i < length; i++) {
+			if (bytes[i] == 0) {
+				return Format.BINARY;
+			}
+		}
+		for (int i = start; i < length; i++) {
+			char c = (char) bytes[i];
+			if (!Character.isWhitespace(c)) {
+				if (c == '<') {
+					return Format.XML;
+				} else if (c == '{' || c == '[') {
+					return Format.JSON;
+				}
 				break;
 			}
 		}
-		return isBinary ? Format.BINARY : Format.TEXT;
+		return Format.TEXT;
+	}
+
+	private boolean startsWith(byte[] bytes, int length, int... signature) {
+		if (length < signature.length) {
+			return false;
+		}
+		for (int i = 0; i < signature.length; i++) {
+			if ((bytes[i] & 0xFF) != signature[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	protected ExtensionIndex getExtensionIndex() {
+		ExtensionIndex index = extensionIndex;
+		if (index == null || !index.isCurrent()) {
+			synchronized (this) {
+				index = extensionIndex;
+				if (index == null || !index.isCurrent()) {
+					index = new ExtensionIndex();
+					extensionIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Map of each configured extension to its Format, along with a cache of the Format for each distinct set of
+	 * extensions that has been looked up.
+	 */
+	protected class ExtensionIndex {
+
+		private final Map<String, Format> formats = new HashMap<>();
+		private final Map<String, Format> cache = new ConcurrentHashMap<>();
+		private final int binaryVersion = binaryExtensions.getVersion();
+		private final int xmlVersion = xmlExtensions.getVersion();
+		private final int jsonVersion = jsonExtensions.getVersion();
+
+		ExtensionIndex() {
+			// Added in reverse order of precedence so that XML and then JSON win when an extension is in multiple lists
+			addExtensions(binaryExtensions, Format.BINARY);
+			addExtensions(jsonExtensions, Format.JSON);
+			addExtensions(xmlExtensions, Format.XML);
+		}
+
+		private void addExtensions(Collection<String> extensions, Format format) {
+			for (String ext : extensions) {
+				if (ext != null) {
+					String key = normalize(ext.startsWith(".") ? ext.substring(1) : ext);
+					if (!key.isEmpty()) {
+						formats.put(key, format);
+					}
+				}
+			}
+		}
+
+		boolean isCurrent() {
+			return binaryVersion == binaryExtensions.getVersion() && xmlVersion == xmlExtensions.getVersion()
+				&& jsonVersion == jsonExtensions.getVersion();
+		}
+
+		/**
+		 * @param extensions everything after the first period in a filename
+		 * @return
+		 */
+		Format getFormat(String extensions) {
+			Format format = cache.get(extensions);
+			if (format == null) {
+				format = lookup(normalize(extensions));
+				if (cache.size() >= MAX_CACHED_EXTENSIONS) {
+					cache.clear();
+				}
+				cache.put(extensions, format);
+			}
+			return format;
+		}
+
+		private Format lookup(String extensions) {
+			String candidate = extensions;
+			while (true) {
+				Format format = formats.get(candidate);
+				if (format != null) {
+					return format;
+				}
+				int dot = candidate.indexOf('.');
+				if (dot < 0) {
+					return Format.TEXT;
+				}
+				candidate = candidate.substring(dot + 1);
+			}
+		}
+
+		private String normalize(String ext) {
+			return ext.toLowerCase();
+		}
+	}
+
+	/**
+	 * Tracks modifications so that the ExtensionIndex can be rebuilt when an extension list is modified via one of the
+	 * getters.
+	 */
+	private static class ExtensionList extends AbstractList<String> {
+
+		private final List<String> extensions;
+
+		ExtensionList() {
+			this.extensions = new ArrayList<>();
+		}
+
+		ExtensionList(Collection<String> extensions) {
+			this.extensions = new ArrayList<>(extensions);
+		}
+
+		@Override
+		public String get(int index) {
+			return extensions.get(index);
+		}
+
+		@Override
+		public int size() {
+			return extensions.size();
+		}
+
+		@Override
+		public String set(int index, String element) {
+			modCount++;
+			return extensions.set(index, element);
+		}
+
+		@Override
+		public void add(int index, String element) {
+			modCount++;
+			extensions.add(index, element);
+		}
+
+		@Override
+		public String remove(int index) {
+			modCount++;
+			return extensions.remove(index);
+		}
+
+		int getVersion() {
+			return modCount;
+		}
 	}
 
 	public List<String> getBinaryExtensions() {
@@ -65,7 +273,8 @@ public class DefaultDocumentFormatGetter implements FormatGetter {
 	}
 
 	public void setBinaryExtensions(List<String> binaryExtensions) {
-		this.binaryExtensions = binaryExtensions;
+		this.binaryExtensions = new ExtensionList(binaryExtensions);
+		this.extensionIndex = null;
 	}
 
 	public List<String> getXmlExtensions() {
@@ -73,7 +282,8 @@ public class DefaultDocumentFormatGetter implements FormatGetter {
 	}
 
 	public void setXmlExtensions(List<String> xmlExtensions) {
-		this.xmlExtensions = xmlExtensions;
+		this.xmlExtensions = new ExtensionList(xmlExtensions);
+		this.extensionIndex = null;
 	}
 
 	public List<String> getJsonExtensions() {
@@ -81,6 +291,23 @@ public class DefaultDocumentFormatGetter implements FormatGetter {
 	}
 
 	public void setJsonExtensions(List<String> jsonExtensions) {
-		this.jsonExtensions = jsonExtensions;
+		this.jsonExtensions = new ExtensionList(jsonExtensions);
+		this.extensionIndex = null;
+	}
+
+	public boolean isSniffExtensionlessFiles() {
+		return sniffExtensionlessFiles;
+	}
+
+	public void setSniffExtensionlessFiles(boolean sniffExtensionlessFiles) {
+		this.sniffExtensionlessFiles = sniffExtensionlessFiles;
+	}
+
+	public int getSniffLength() {
+		return sniffLength;
+	}
+
+	public void setSniffLength(int sniffLength) {
+		this.sniffLength = sniffLength;
 	}
 }
@@ -0,0 +1,28 @@
+package com.marklogic.client.ext.file;
+
+import java.io.File;
+
+/**
+ * Optional extension of DocumentFileProcessor for a processor that needs to do some work once per directory - such as
+ * looking for a special file in that directory - instead of once for every file in the directory. DefaultDocumentFileReader
+ * and ParallelDocumentFileReader call enterDirectory before any file in an accepted directory is processed, and
+ * exitDirectory once every file in that directory has been processed.
+ * <p>
+ * A processor must still produce the same result when processDocumentFile is called for a file whose directory was
+ * never entered, as is the case when a reader is given the path of a single file.
+ */
+public interface DirectoryAwareDocumentFileProcessor extends DocumentFileProcessor {
+
+	/**
+	 * @param directory
+	 */
+	void enterDirectory(File directory);
+
+	/**
+	 * Allows for any state built in enterDirectory to be released.
+	 *
+	 * @param directory
+	 */
+	default void exitDirectory(File directory) {
+	}
+}
@@ -6,6 +6,7 @@ import com.marklogic.client.io.marker.AbstractWriteHandle;
 import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.util.ResourceUtils;
 
 import java.io.File;
 import java.io.IOException;
@@ -18,6 +19,13 @@ import java.nio.file.Path;
  * The modifiedContent allows for the content of this DocumentWriteOperation to be set via that property instead of via
  * the File. The assumption is that something like a DocumentFileProcessor has read in the contents of the File used to
  * construct this class,
+ *
+ * The modifiedContentSender is an alternative to modifiedContent for large documents; instead of holding the modified
+ * content in memory, it writes the modified content when the document is sent to MarkLogic.
+ *
+ * When the content has not been modified and the Resource is backed by a File, the content is returned as a
+ * FileHandle. This allows the Java Client API and XCC to stream the document directly from the file - and to read it
+ * again if a request needs to be retried - instead of reading it into memory first.
  */
 public class DocumentFile implements DocumentWriteOperation {
 
@@ -27,7 +35,9 @@ public class DocumentFile implements DocumentWriteOperation {
 	private DocumentMetadataHandle documentMetadata;
 	private String temporalDocumentURI;
 	private String modifiedContent;
+	private OutputStreamSender modifiedContentSender;
 	private Path rootPath;
+	private long fileSize = -1;
 
 	public DocumentFile(String uri, Resource resource) {
 		init(uri, resource);
@@ -64,6 +74,16 @@ public class DocumentFile implements DocumentWriteOperation {
 			StringHandle h = new StringHandle(modifiedContent);
 			return format != null ? h.withFormat(format) : h;
 		}
+		if (modifiedContentSender != null) {
+			// The sender reads the resource again each time it's invoked, so the content can be resent on a retry
+			OutputStreamHandle h = new OutputStreamHandle(modifiedContentSender).withResendable(true);
+			return format != null ? h.withFormat(format) : h;
+		}
+		File file = getFileForContent();
+		if (file != null) {
+			FileHandle h = new FileHandle(file);
+			return format != null ? h.withFormat(format) : h;
+		}
 		InputStreamHandle h = null;
 		try {
 			h = new InputStreamHandle(resource.getInputStream());
@@ -73,6 +93,48 @@ public class DocumentFile implements DocumentWriteOperation {
 		return format != null ? h.withFormat(format) : h;
 	}
 
+	/**
+	 * @return the File that the Resource is based on, or null if the Resource is not backed by a File - e.g. when it's
+	 * in a jar file
+	 */
+	protected File getFileForContent() {
+		if (resource instanceof FileSystemResource) {
+			return ((FileSystemResource) resource).getFile();
+		}
+		if (resource != null) {
+			try {
+				if (ResourceUtils.isFileURL(resource.getURL())) {
+					return resource.getFile();
+				}
+			} catch (IOException e) {
+				// The content will be read via an InputStream instead
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the number of bytes that will be sent for this document - based on modifiedContent if it's set,
+	 * otherwise on fileSize if it's set, otherwise on the length of the Resource - or -1 if this can't be determined
+	 */
+	public long getContentLength() {
+		if (modifiedContent != null) {
+			// Close enough for budgeting purposes without encoding the String
+			return modifiedContent.length();
+		}
+		if (fileSize >= 0) {
+			return fileSize;
+		}
+		if (resource != null) {
+			try {
+				return resource.contentLength();
+			} catch (IOException e) {
+				// Fall through
+			}
+		}
+		return -1;
+	}
+
 	@Override
 	public String getTemporalDocumentURI() {
 		return temporalDocumentURI;
@@ -137,6 +199,20 @@ public class DocumentFile implements DocumentWriteOperation {
 		return modifiedContent;
 	}
 
+	public OutputStreamSender getModifiedContentSender() {
+		return modifiedContentSender;
+	}
+
+	/**
+	 * Optional to set - writes the modified content of this document as it's being sent to MarkLogic. Ignored if
+	 * modifiedContent is set.
+	 *
+	 * @param modifiedContentSender
+	 */
+	public void setModifiedContentSender(OutputStreamSender modifiedContentSender) {
+		this.modifiedContentSender = modifiedContentSender;
+	}
+
 	public Path getRootPath() {
 		return rootPath;
 	}
@@ -148,4 +224,18 @@ public class DocumentFile implements DocumentWriteOperation {
 	public void setRootPath(Path rootPath) {
 		this.rootPath = rootPath;
 	}
+
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * Optional to set - the size of the File in bytes, as captured when the File was found, so that it doesn't need
+	 * to be read from the filesystem again
+	 *
+	 * @param fileSize
+	 */
+	public void setFileSize(long fileSize) {
+		this.fileSize = fileSize;
+	}
 }
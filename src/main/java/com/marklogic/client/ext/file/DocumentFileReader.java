@@ -1,6 +1,7 @@
 package com.marklogic.client.ext.file;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Strategy interface for determining which files to load into MarkLogic, with those files being captured as a List of
@@ -14,4 +15,19 @@ import java.util.List;
 public interface DocumentFileReader {
 
 	List<DocumentFile> readDocumentFiles(String... paths);
+
+	/**
+	 * Hand each DocumentFile to the given Consumer as soon as it's been read and processed, instead of collecting all
+	 * of them into a List first. The default implementation just reads everything and then hands each DocumentFile to
+	 * the Consumer; implementations that can stream files while reading them are expected to override this.
+	 *
+	 * @param consumer
+	 * @param paths
+	 */
+	default void readDocumentFiles(Consumer<DocumentFile> consumer, String... paths) {
+		List<DocumentFile> documentFiles = readDocumentFiles(paths);
+		if (documentFiles != null) {
+			documentFiles.forEach(consumer);
+		}
+	}
 }
@@ -1,15 +1,23 @@
 package com.marklogic.client.ext.file;
 
 import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.ext.batch.AdaptiveBatchSizer;
 import com.marklogic.client.ext.batch.BatchWriter;
+import com.marklogic.client.ext.batch.BatchWriterSupport;
 import com.marklogic.client.ext.batch.RestBatchWriter;
 import com.marklogic.client.ext.helper.LoggingObject;
 import com.marklogic.client.ext.tokenreplacer.TokenReplacer;
+import org.springframework.core.io.Resource;
 
 import java.io.FileFilter;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Generic implementation of FileLoader. Delegates to a DocumentFileReader for reading from a set of file paths, and
@@ -19,14 +27,46 @@ import java.util.List;
  * The batchSize property defaults to null, which means all files are written in one call via the BatchWriter. Setting
  * this means that the List of DocumentFile objects read from the DocumentFileReader will be written in batches, each
  * the size of the batchSize property, except for the final one that may be less than this size.
+ *
+ * The maxBytesPerBatch property can be set - either instead of or in addition to batchSize - to limit the total size of
+ * the files in each batch, as a batch of large files can cause request timeouts. The size of each file is captured
+ * while the file is found. A file larger than maxBytesPerBatch is written in a batch of its own, and since an
+ * unmodified file is sent via a FileHandle, its content is streamed instead of read into memory.
+ *
+ * When streaming is set to true, files are not collected into a List before being written. Instead, the
+ * DocumentFileReader walks the paths on a separate thread and hands each DocumentFile to a bounded queue, and batches
+ * are written from that queue while the walk is still running. The streamingQueueCapacity property bounds how many
+ * files can be waiting to be written at any time. If batchSize is not set, DEFAULT_STREAMING_BATCH_SIZE is used.
+ * So that the batches waiting on the BatchWriter are bounded too, a BatchWriterSupport that has neither
+ * maxInFlightBatches nor maxInFlightBytes set is given a maxInFlightBatches of DEFAULT_STREAMING_MAX_IN_FLIGHT_BATCHES
+ * for the duration of the call to loadFiles, after which its previous value is restored.
+ * And in streaming mode, loadFiles returns an empty List instead of holding onto every DocumentFile that was written,
+ * unless retainDocumentFiles is set to true.
+ *
+ * If batchSize is not set and the BatchWriter is a BatchWriterSupport with an AdaptiveBatchSizer, then batches are
+ * sized by that AdaptiveBatchSizer instead - in streaming mode, the size of each batch is taken from it.
  */
 public class GenericFileLoader extends LoggingObject implements FileLoader {
 
+	public final static int DEFAULT_STREAMING_BATCH_SIZE = 100;
+	public final static int DEFAULT_STREAMING_MAX_IN_FLIGHT_BATCHES = 32;
+
+	// Marks the end of the files that the reader thread places on the queue when streaming
+	private final static DocumentFile END_OF_FILES = new DocumentFile(null, (Resource) null);
+
 	private DocumentFileReader documentFileReader;
 	private BatchWriter batchWriter;
 	private boolean waitForCompletion = true;
 	private boolean logFileUris = true;
 	private Integer batchSize;
+	private Long maxBytesPerBatch;
+
+	private boolean streaming = false;
+	private int streamingQueueCapacity = 1000;
+	private boolean retainDocumentFiles = false;
+
+	// When greater than 1, a ParallelDocumentFileReader is created instead of a DefaultDocumentFileReader
+	private int readerThreadCount = 1;
 
 	// These are passed on to the DefaultDocumentFileReader that is created if one isn't set
 	private List<FileFilter> fileFilters;
@@ -69,6 +109,19 @@ public class GenericFileLoader extends LoggingObject implements FileLoader {
 	 * @return
 	 */
 	public List<DocumentFile> loadFiles(String... paths) {
+		if (streaming) {
+			Integer previousMaxInFlightBatches = limitBatchesInFlight();
+			try {
+				batchWriter.initialize();
+				initializeDocumentFileReader();
+				return streamFiles(paths);
+			} finally {
+				if (previousMaxInFlightBatches != null) {
+					((BatchWriterSupport) batchWriter).setMaxInFlightBatches(previousMaxInFlightBatches);
+				}
+			}
+		}
+
 		batchWriter.initialize();
 		initializeDocumentFileReader();
 
@@ -83,54 +136,267 @@ public class GenericFileLoader extends LoggingObject implements FileLoader {
 	}
 
 	/**
-	 * If batchSize is not set, then this method will load all the documents in one call to the BatchWriter. Otherwise,
-	 * this will divide up the list of documentFiles into batches matching the value of batchSize, with the last batch
-	 * possibly being less than batchSize.
-	 * 
+	 * Load only the given files, each of which should be under rootPath; the URI of each file is determined relative to
+	 * rootPath, just as when loading all of rootPath. This avoids walking every directory when only a few files are known
+	 * to have changed. A DocumentFileReader other than a DefaultDocumentFileReader can only read a whole path, in which
+	 * case all of rootPath is read and only the given files are kept.
+	 *
+	 * @param rootPath
+	 * @param files
+	 * @return
+	 */
+	public List<DocumentFile> loadFiles(Path rootPath, List<Path> files) {
+		batchWriter.initialize();
+		initializeDocumentFileReader();
+
+		List<DocumentFile> documentFiles;
+		if (documentFileReader instanceof DefaultDocumentFileReader) {
+			documentFiles = ((DefaultDocumentFileReader) documentFileReader).readDocumentFiles(rootPath, files);
+		} else {
+			Set<Path> paths = new HashSet<>();
+			for (Path file : files) {
+				paths.add(file.toAbsolutePath().normalize());
+			}
+			documentFiles = new ArrayList<>();
+			for (DocumentFile df : documentFileReader.readDocumentFiles(rootPath.toString())) {
+				if (df.getFile() != null && paths.contains(df.getFile().toPath().toAbsolutePath().normalize())) {
+					documentFiles.add(df);
+				}
+			}
+		}
+
+		if (!documentFiles.isEmpty()) {
+			writeBatchOfDocuments(documentFiles, 0);
+			if (waitForCompletion) {
+				batchWriter.waitForCompletion();
+			}
+		}
+		return documentFiles;
+	}
+
+	/**
+	 * Without a limit on the BatchWriter, every batch that's been read but not yet written would wait in the queue of
+	 * its TaskExecutor, and memory would still grow with the number of files. The limit only applies while files are
+	 * being streamed; loadFiles restores the previous value once it's done, so the BatchWriter is left as it was found.
+	 *
+	 * @return the previous maxInFlightBatches if the limit was applied, or null if it wasn't
+	 */
+	protected Integer limitBatchesInFlight() {
+		if (batchWriter instanceof BatchWriterSupport) {
+			BatchWriterSupport support = (BatchWriterSupport) batchWriter;
+			if (support.getMaxInFlightBatches() < 1 && support.getMaxInFlightBytes() < 1) {
+				if (logger.isInfoEnabled()) {
+					logger.info(format("Streaming files, so limiting the batches in flight to %d",
+						DEFAULT_STREAMING_MAX_IN_FLIGHT_BATCHES));
+				}
+				int previous = support.getMaxInFlightBatches();
+				support.setMaxInFlightBatches(DEFAULT_STREAMING_MAX_IN_FLIGHT_BATCHES);
+				return previous;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads files on a separate thread via the DocumentFileReader, which places each DocumentFile on a bounded queue.
+	 * The calling thread takes files off of that queue and writes them in batches, which means the first batch can be
+	 * written as soon as enough files have been read, and the number of files held in memory is bounded by the size of
+	 * the queue and the batch size.
+	 *
+	 * @param paths
+	 * @return the DocumentFiles that were written if retainDocumentFiles is true, or else an empty List
+	 */
+	protected List<DocumentFile> streamFiles(String... paths) {
+		int size = determineStreamingBatchSize();
+		final BlockingQueue<DocumentFile> queue = new ArrayBlockingQueue<>(streamingQueueCapacity);
+		final Throwable[] readerError = new Throwable[1];
+
+		Thread readerThread = new Thread(() -> {
+			try {
+				documentFileReader.readDocumentFiles(documentFile -> {
+					try {
+						queue.put(documentFile);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Interrupted while waiting to queue file: " + documentFile.getUri(), ie);
+					}
+				}, paths);
+			} catch (Throwable t) {
+				readerError[0] = t;
+			} finally {
+				try {
+					queue.put(END_OF_FILES);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, "ml-document-file-reader");
+		readerThread.setDaemon(true);
+		readerThread.start();
+
+		List<DocumentFile> documentFiles = new ArrayList<>();
+		List<DocumentFile> batch = new ArrayList<>(size);
+		long batchBytes = 0;
+		boolean wroteDocuments = false;
+		try {
+			while (true) {
+				DocumentFile documentFile = queue.take();
+				if (documentFile == END_OF_FILES) {
+					break;
+				}
+				long length = getContentLength(documentFile);
+				if (!batch.isEmpty() && exceedsMaxBytesPerBatch(batchBytes + length)) {
+					writeBatch(batch);
+					wroteDocuments = true;
+					if (retainDocumentFiles) {
+						documentFiles.addAll(batch);
+					}
+					size = determineStreamingBatchSize();
+					batch = new ArrayList<>(size);
+					batchBytes = 0;
+				}
+				batch.add(documentFile);
+				batchBytes += length;
+				if (batch.size() >= size) {
+					writeBatch(batch);
+					wroteDocuments = true;
+					if (retainDocumentFiles) {
+						documentFiles.addAll(batch);
+					}
+					size = determineStreamingBatchSize();
+					batch = new ArrayList<>(size);
+					batchBytes = 0;
+				}
+			}
+			if (!batch.isEmpty()) {
+				writeBatch(batch);
+				wroteDocuments = true;
+				if (retainDocumentFiles) {
+					documentFiles.addAll(batch);
+				}
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for files to be read", ie);
+		} finally {
+			if (readerThread.isAlive()) {
+				readerThread.interrupt();
+			}
+		}
+
+		if (readerError[0] != null) {
+			Throwable t = readerError[0];
+			throw t instanceof RuntimeException ? (RuntimeException) t : new RuntimeException(t);
+		}
+
+		if (wroteDocuments && waitForCompletion) {
+			batchWriter.waitForCompletion();
+		}
+		return documentFiles;
+	}
+
+	/**
+	 * Determined before each batch is collected when streaming. If batchSize is not set and the BatchWriter has an
+	 * AdaptiveBatchSizer, then the AdaptiveBatchSizer determines the size of each batch.
+	 *
+	 * @return
+	 */
+	protected int determineStreamingBatchSize() {
+		if (batchSize != null && batchSize > 0) {
+			return batchSize;
+		}
+		if (batchWriter instanceof BatchWriterSupport) {
+			AdaptiveBatchSizer batchSizer = ((BatchWriterSupport) batchWriter).getBatchSizer();
+			if (batchSizer != null) {
+				return batchSizer.getBatchSize();
+			}
+		}
+		return DEFAULT_STREAMING_BATCH_SIZE;
+	}
+
+	/**
+	 * If neither batchSize nor maxBytesPerBatch is set, then this method will load all the documents in one call to the
+	 * BatchWriter. Otherwise, this will divide up the list of documentFiles into batches of at most batchSize documents
+	 * and at most maxBytesPerBatch bytes. A document that is larger than maxBytesPerBatch by itself is written in a
+	 * batch of its own.
+	 *
 	 * @param documentFiles
 	 * @param startPosition
 	 */
 	protected void writeBatchOfDocuments(List<DocumentFile> documentFiles, final int startPosition) {
 		final int documentFilesSize = documentFiles.size();
-		if (startPosition >= documentFilesSize) {
-			return;
-		}
 
 		if (batchSize != null && batchSize < 1) {
 			batchSize = null;
 		}
 
-		// The "end" param to subList below is exclusive, so the highest valid value is the list size
-		int endPosition = batchSize == null ? documentFilesSize : startPosition + batchSize;
-		if (endPosition > documentFilesSize) {
-			endPosition = documentFilesSize;
-		}
+		int position = startPosition;
+		while (position < documentFilesSize) {
+			// The "end" param to subList below is exclusive, so the highest valid value is the list size
+			int endPosition = batchSize == null ? documentFilesSize : position + batchSize;
+			if (endPosition > documentFilesSize) {
+				endPosition = documentFilesSize;
+			}
 
-		List<DocumentFile> batch = documentFiles.subList(startPosition, endPosition);
-		if (!batch.isEmpty()) {
-			if (logger.isInfoEnabled()) {
-				logger.info(format("Writing %d files", batch.size()));
-				if (logFileUris) {
-					for (DocumentFile df : batch) {
-						logger.info("Writing: " + df.getUri());
+			if (maxBytesPerBatch != null) {
+				long batchBytes = 0;
+				for (int i = position; i < endPosition; i++) {
+					batchBytes += getContentLength(documentFiles.get(i));
+					if (i > position && exceedsMaxBytesPerBatch(batchBytes)) {
+						endPosition = i;
+						break;
 					}
 				}
 			}
-			batchWriter.write(batch);
+
+			List<DocumentFile> batch = documentFiles.subList(position, endPosition);
+			if (!batch.isEmpty()) {
+				writeBatch(batch);
+			}
+			position = endPosition;
 		}
+	}
 
-		if (endPosition < documentFilesSize) {
-			writeBatchOfDocuments(documentFiles, endPosition);
+	protected boolean exceedsMaxBytesPerBatch(long batchBytes) {
+		return maxBytesPerBatch != null && maxBytesPerBatch > 0 && batchBytes > maxBytesPerBatch;
+	}
+
+	/**
+	 * @param documentFile
+	 * @return the length of the document's content, which is based on the file size captured during the walk when
+	 * possible; unknown lengths are counted as zero
+	 */
+	protected long getContentLength(DocumentFile documentFile) {
+		long length = documentFile.getContentLength();
+		return length > 0 ? length : 0;
+	}
+
+	/**
+	 * Logs the batch and then hands it off to the BatchWriter.
+	 *
+	 * @param batch
+	 */
+	protected void writeBatch(List<DocumentFile> batch) {
+		if (logger.isInfoEnabled()) {
+			logger.info(format("Writing %d files", batch.size()));
+			if (logFileUris) {
+				for (DocumentFile df : batch) {
+					logger.info("Writing: " + df.getUri());
+				}
+			}
 		}
+		batchWriter.write(batch);
 	}
 
 	/**
 	 * If no DocumentFileReader is set, this will construct a DefaultDocumentFileReader, which is then configured based
-	 * on several properties of this class.
+	 * on several properties of this class. If readerThreadCount is greater than 1, a ParallelDocumentFileReader is
+	 * constructed instead.
 	 */
 	public void initializeDocumentFileReader() {
 		if (this.documentFileReader == null) {
-			DefaultDocumentFileReader reader = new DefaultDocumentFileReader();
+			DefaultDocumentFileReader reader = readerThreadCount > 1 ?
+				new ParallelDocumentFileReader(readerThreadCount) : new DefaultDocumentFileReader();
 
 			if (fileFilters != null) {
 				for (FileFilter filter : fileFilters) {
@@ -271,4 +537,44 @@ public class GenericFileLoader extends LoggingObject implements FileLoader {
 	public void setBatchSize(Integer batchSize) {
 		this.batchSize = batchSize;
 	}
+
+	public Long getMaxBytesPerBatch() {
+		return maxBytesPerBatch;
+	}
+
+	public void setMaxBytesPerBatch(Long maxBytesPerBatch) {
+		this.maxBytesPerBatch = maxBytesPerBatch;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	public int getStreamingQueueCapacity() {
+		return streamingQueueCapacity;
+	}
+
+	public void setStreamingQueueCapacity(int streamingQueueCapacity) {
+		this.streamingQueueCapacity = streamingQueueCapacity;
+	}
+
+	public boolean isRetainDocumentFiles() {
+		return retainDocumentFiles;
+	}
+
+	public void setRetainDocumentFiles(boolean retainDocumentFiles) {
+		this.retainDocumentFiles = retainDocumentFiles;
+	}
+
+	public int getReaderThreadCount() {
+		return readerThreadCount;
+	}
+
+	public void setReaderThreadCount(int readerThreadCount) {
+		this.readerThreadCount = readerThreadCount;
+	}
 }
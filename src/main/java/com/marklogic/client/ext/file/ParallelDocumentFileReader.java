@@ -0,0 +1,204 @@
+package com.marklogic.client.ext.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Extends DefaultDocumentFileReader to walk each of the given paths - and each directory under those paths - in
+ * parallel via a ForkJoinPool. The same FileFilter and DocumentFileProcessor semantics apply; a directory that is not
+ * accepted by every FileFilter is skipped along with everything under it, and a file must be accepted by every
+ * FileFilter before a DocumentFile is built for it and passed through the DocumentFileProcessors.
+ * <p>
+ * Because DocumentFileProcessors are invoked on multiple threads, they must be threadsafe. The processors that are
+ * created by default are threadsafe. Calls to a Consumer passed to readDocumentFiles are synchronized, so a Consumer
+ * does not need to be threadsafe.
+ * <p>
+ * Files are found in no particular order. Set sortByUri to true to have the DocumentFiles returned - or handed to a
+ * Consumer - in order by URI; note that when using a Consumer, this means all files are read before any are handed
+ * to the Consumer.
+ * <p>
+ * The parallelism property defaults to the number of available processors. When reading from a network filesystem,
+ * where most of the time is spent waiting on the filesystem, a higher value will often be faster.
+ */
+public class ParallelDocumentFileReader extends DefaultDocumentFileReader {
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private boolean sortByUri = false;
+
+	public ParallelDocumentFileReader() {
+		super();
+	}
+
+	public ParallelDocumentFileReader(int parallelism) {
+		this();
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public List<DocumentFile> readDocumentFiles(String... paths) {
+		List<DocumentFile> documentFiles = new ArrayList<>();
+		readDocumentFiles(documentFiles::add, paths);
+		return documentFiles;
+	}
+
+	@Override
+	public void readDocumentFiles(Consumer<DocumentFile> consumer, String... paths) {
+		if (sortByUri) {
+			List<DocumentFile> documentFiles = new ArrayList<>();
+			walkPaths(documentFiles::add, paths);
+			Collections.sort(documentFiles, Comparator.comparing(DocumentFile::getUri));
+			documentFiles.forEach(consumer);
+		} else {
+			walkPaths(consumer, paths);
+		}
+	}
+
+	protected void walkPaths(Consumer<DocumentFile> consumer, String... paths) {
+		final Object lock = new Object();
+		final Consumer<DocumentFile> synchronizedConsumer = documentFile -> {
+			synchronized (lock) {
+				consumer.accept(documentFile);
+			}
+		};
+
+		List<RecursiveAction> tasks = new ArrayList<>();
+		for (String path : paths) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(format("Finding files at path: %s", path));
+			}
+			Path p = constructPath(path);
+			if (p != null) {
+				tasks.add(new PathTask(p, p, synchronizedConsumer));
+			} else if (logger.isInfoEnabled()) {
+				logger.info("Path does not exist, so not reading files from it: " + path);
+			}
+		}
+
+		if (tasks.isEmpty()) {
+			return;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : 1);
+		try {
+			pool.invoke(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Visits a single path, which may be a file or a directory. For a directory, a new task is forked for each child
+	 * directory, while each child file is processed by this task.
+	 */
+	private class PathTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private Path rootPath;
+		private Path path;
+		private Consumer<DocumentFile> consumer;
+
+		PathTask(Path rootPath, Path path, Consumer<DocumentFile> consumer) {
+			this.rootPath = rootPath;
+			this.path = path;
+			this.consumer = consumer;
+		}
+
+		@Override
+		protected void compute() {
+			BasicFileAttributes attrs;
+			try {
+				attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			} catch (IOException ex) {
+				logger.warn("Failed visiting file: " + ex.getMessage(), ex);
+				return;
+			}
+
+			if (!attrs.isDirectory()) {
+				visitFile(path, attrs);
+				return;
+			}
+
+			if (!acceptPath(path, attrs)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Skipping directory: " + path);
+				}
+				return;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Visiting directory: " + path);
+			}
+
+			List<PathTask> subtasks = new ArrayList<>();
+			File directory = path.toFile();
+			enterDirectory(directory);
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+				for (Path child : stream) {
+					BasicFileAttributes childAttrs;
+					try {
+						childAttrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					} catch (IOException ex) {
+						logger.warn("Failed visiting file: " + ex.getMessage(), ex);
+						continue;
+					}
+					if (childAttrs.isDirectory()) {
+						subtasks.add(new PathTask(rootPath, child, consumer));
+					} else {
+						visitFile(child, childAttrs);
+					}
+				}
+			} catch (IOException ex) {
+				logger.warn("Error while reading directory: " + path + "; cause: " + ex.getMessage(), ex);
+			} finally {
+				// Every file in this directory has been processed by now; only subdirectories remain
+				exitDirectory(directory);
+			}
+
+			invokeAll(subtasks);
+		}
+
+		private void visitFile(Path file, BasicFileAttributes attrs) {
+			if (acceptPath(file, attrs)) {
+				DocumentFile documentFile = buildDocumentFile(file, rootPath);
+				documentFile.setFileSize(attrs.size());
+				documentFile = processDocumentFile(documentFile);
+				if (documentFile != null) {
+					consumer.accept(documentFile);
+				}
+			}
+		}
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public boolean isSortByUri() {
+		return sortByUri;
+	}
+
+	public void setSortByUri(boolean sortByUri) {
+		this.sortByUri = sortByUri;
+	}
+}
@@ -6,20 +6,31 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Base class for processors that look for a special file in each directory and intend to perform some processing based
  * on the contents of that file. By default, that special file is NOT loaded into MarkLogic.
+ * <p>
+ * When used with DefaultDocumentFileReader or ParallelDocumentFileReader, the special file is looked for and loaded
+ * once per directory when the reader enters the directory, and the result - including the absence of the file - is
+ * shared by every file in that directory. The result is released when the reader exits the directory.
  */
-public abstract class PropertiesDrivenDocumentFileProcessor extends LoggingObject implements DocumentFileProcessor, FileFilter {
+public abstract class PropertiesDrivenDocumentFileProcessor extends LoggingObject implements DirectoryAwareDocumentFileProcessor, FileFilter {
+
+	// Marks a directory that has no properties file, so that it's not looked for again
+	private final static Properties NO_PROPERTIES = new Properties();
 
 	private String propertiesFilename;
 
-	// Used to avoid checking for and loading the properties for every file in a directory
-	private Map<File, Properties> propertiesCache = new HashMap<>();
+	// Used to avoid checking for and loading the properties for every file in a directory; concurrent so that this
+	// can be used by a ParallelDocumentFileReader
+	private Map<File, Properties> propertiesCache = new ConcurrentHashMap<>();
+
+	// Properties for each directory that's currently being visited, keyed on the directory
+	private Map<File, Properties> directoryIndex = new ConcurrentHashMap<>();
 
 	protected PropertiesDrivenDocumentFileProcessor(String propertiesFilename) {
 		this.propertiesFilename = propertiesFilename;
@@ -30,6 +41,16 @@ public abstract class PropertiesDrivenDocumentFileProcessor extends LoggingObjec
 		return !file.getName().equals(propertiesFilename);
 	}
 
+	@Override
+	public void enterDirectory(File directory) {
+		directoryIndex.put(directory, resolveProperties(directory));
+	}
+
+	@Override
+	public void exitDirectory(File directory) {
+		directoryIndex.remove(directory);
+	}
+
 	/**
 	 * @param documentFile
 	 * @return
@@ -41,17 +62,34 @@ public abstract class PropertiesDrivenDocumentFileProcessor extends LoggingObjec
 			return null;
 		}
 
-		File propertiesFile = new File(file.getParentFile(), propertiesFilename);
+		File directory = file.getParentFile();
+		Properties props = directory != null ? directoryIndex.get(directory) : null;
+		if (props == null) {
+			// The reader didn't enter the directory first, e.g. it was given the path of a single file
+			props = directory != null ? resolveProperties(directory) : NO_PROPERTIES;
+		}
+		if (props != NO_PROPERTIES) {
+			processProperties(documentFile, props);
+		}
+
+		return documentFile;
+	}
+
+	/**
+	 * @param directory
+	 * @return the properties loaded from the properties file in the given directory, or NO_PROPERTIES if the file
+	 * does not exist or cannot be loaded
+	 */
+	protected Properties resolveProperties(File directory) {
+		File propertiesFile = new File(directory, propertiesFilename);
 		if (propertiesFile.exists()) {
 			try {
-				Properties props = loadProperties(propertiesFile);
-				processProperties(documentFile, props);
+				return loadProperties(propertiesFile);
 			} catch (IOException e) {
 				logger.warn("Unable to load properties from file: " + propertiesFile.getAbsolutePath(), e);
 			}
 		}
-
-		return documentFile;
+		return NO_PROPERTIES;
 	}
 
 	protected abstract void processProperties(DocumentFile documentFile, Properties properties);
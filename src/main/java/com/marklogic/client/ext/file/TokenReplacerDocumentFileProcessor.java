@@ -6,18 +6,30 @@ import com.marklogic.client.ext.tokenreplacer.TokenReplacer;
 import org.springframework.core.io.Resource;
 import org.springframework.util.FileCopyUtils;
 
-import java.io.File;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Processor that delegates to a TokenReplacer for replacing tokens in the content of a DocumentFile. In order to
  * replace tokens, the File must first be read in as a String. After tokens are replaced, the String is set back on
  * the DocumentFile via setModifiedContent.
+ *
+ * When streamingThreshold is zero or greater, any file at least that many bytes in size is not read in as a String.
+ * Instead, a sender is set on the DocumentFile via setModifiedContentSender, and tokens are replaced as the content is
+ * written to MarkLogic. Memory use is then bounded by the buffer size of the TokenReplacer instead of by the size of
+ * the file. Content is read and written with the given charset, which defaults to UTF-8.
  */
 public class TokenReplacerDocumentFileProcessor extends LoggingObject implements DocumentFileProcessor {
 
 	private TokenReplacer tokenReplacer;
+	private Charset charset = StandardCharsets.UTF_8;
+	private long streamingThreshold = -1;
 
 	public TokenReplacerDocumentFileProcessor(TokenReplacer tokenReplacer) {
 		this.tokenReplacer = tokenReplacer;
@@ -30,8 +42,12 @@ public class TokenReplacerDocumentFileProcessor extends LoggingObject implements
 			if (text == null) {
 				Resource resource = documentFile.getResource();
 				if (resource != null) {
+					if (shouldStream(resource)) {
+						streamTokenReplacement(documentFile, resource);
+						return documentFile;
+					}
 					try {
-						text = new String(FileCopyUtils.copyToByteArray(resource.getInputStream()));
+						text = new String(FileCopyUtils.copyToByteArray(resource.getInputStream()), charset);
 					} catch (IOException ie) {
 						logger.warn("Unable to replace tokens in file: " + documentFile.getUri() + "; cause: " + ie.getMessage());
 					}
@@ -45,8 +61,55 @@ public class TokenReplacerDocumentFileProcessor extends LoggingObject implements
 		return documentFile;
 	}
 
+	protected boolean shouldStream(Resource resource) {
+		if (streamingThreshold < 0) {
+			return false;
+		}
+		try {
+			return resource.contentLength() >= streamingThreshold;
+		} catch (IOException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Sets a sender on the DocumentFile that reads the resource and replaces tokens while the content is being written.
+	 * The OutputStream provided by the sender is flushed but not closed.
+	 *
+	 * @param documentFile
+	 * @param resource
+	 */
+	protected void streamTokenReplacement(DocumentFile documentFile, Resource resource) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Will replace tokens while writing file: " + documentFile.getUri());
+		}
+		documentFile.setModifiedContentSender(out -> {
+			try (Reader reader = new InputStreamReader(resource.getInputStream(), charset)) {
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset));
+				tokenReplacer.replaceTokens(reader, writer);
+				writer.flush();
+			}
+		});
+	}
+
 	protected boolean moduleCanBeReadAsString(Format format) {
 		return format != null && (format.equals(Format.JSON) || format.equals(Format.TEXT)
 			|| format.equals(Format.XML));
 	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	public long getStreamingThreshold() {
+		return streamingThreshold;
+	}
+
+	public void setStreamingThreshold(long streamingThreshold) {
+		this.streamingThreshold = streamingThreshold;
+	}
 }
@@ -0,0 +1,56 @@
+package com.marklogic.client.ext.helper;
+
+/**
+ * Counts the tasks that have been handed to an executor but have not yet finished, so that a caller can wait for the
+ * tasks of one job to finish without shutting down the executor. The executor - and its threads - can then be reused
+ * for the next job.
+ * <p>
+ * Call started before handing off a task and finished once it's done, no matter how it ended; track does both around
+ * a Runnable. If the executor rejects a tracked task, finished must still be called.
+ */
+public class CompletionTracker {
+
+	private int pending = 0;
+
+	public synchronized void started() {
+		pending++;
+	}
+
+	public synchronized void finished() {
+		pending--;
+		if (pending <= 0) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * @param runnable
+	 * @return a Runnable that runs the given Runnable and then marks it as finished; it's counted as started as soon as
+	 * this is called
+	 */
+	public Runnable track(Runnable runnable) {
+		started();
+		return () -> {
+			try {
+				runnable.run();
+			} finally {
+				finished();
+			}
+		};
+	}
+
+	/**
+	 * Blocks until every task that has been started has finished, including tasks started while waiting.
+	 *
+	 * @throws InterruptedException
+	 */
+	public synchronized void awaitCompletion() throws InterruptedException {
+		while (pending > 0) {
+			wait();
+		}
+	}
+
+	public synchronized int getPendingCount() {
+		return pending;
+	}
+}
@@ -14,6 +14,12 @@ public class Modules {
     private List<Resource> namespaces;
     private Resource propertiesFile;
 
+    /**
+     * When not null, only these assets - each of which should be in one of the asset directories - are loaded, instead
+     * of every file in the asset directories.
+     */
+    private List<Resource> selectedAssets;
+
     public List<Resource> getServices() {
         return services;
     }
@@ -70,4 +76,12 @@ public class Modules {
         this.assets = assets;
     }
 
+    public List<Resource> getSelectedAssets() {
+        return selectedAssets;
+    }
+
+    public void setSelectedAssets(List<Resource> selectedAssets) {
+        this.selectedAssets = selectedAssets;
+    }
+
 }
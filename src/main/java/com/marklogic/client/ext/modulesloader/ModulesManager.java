@@ -16,4 +16,10 @@ public interface ModulesManager {
     boolean hasFileBeenModifiedSinceLastLoaded(File file);
 
     void saveLastLoadedTimestamp(File file, Date date);
+
+    /**
+     * Give the implementor a chance to persist anything it has buffered. Called once all modules have been loaded.
+     */
+    default void flush() {
+    }
 }
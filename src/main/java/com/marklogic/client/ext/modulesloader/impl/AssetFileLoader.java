@@ -2,9 +2,13 @@ package com.marklogic.client.ext.modulesloader.impl;
 
 import com.marklogic.client.DatabaseClient;
 import com.marklogic.client.ext.batch.BatchWriter;
+import com.marklogic.client.ext.file.DocumentFile;
 import com.marklogic.client.ext.file.GenericFileLoader;
 import com.marklogic.client.ext.modulesloader.ModulesManager;
 
+import java.nio.file.Path;
+import java.util.List;
+
 /**
  * File loaded for "assets", as defined by the REST API - basically, any server module. Be sure to use a DatabaseClient
  * that points to your modules database.
@@ -13,6 +17,8 @@ public class AssetFileLoader extends GenericFileLoader {
 
 	public final static String DEFAULT_PERMISSIONS = "rest-admin,read,rest-admin,update,rest-extension-user,execute";
 
+	private ModulesManager modulesManager;
+
 	public AssetFileLoader(DatabaseClient modulesDatabaseClient) {
 		this(modulesDatabaseClient, null);
 	}
@@ -31,7 +37,43 @@ public class AssetFileLoader extends GenericFileLoader {
 		initializeAssetFileLoader(modulesManager);
 	}
 
+	/**
+	 * Flushes the ModulesManager, if one was provided, once all the files have been loaded.
+	 *
+	 * @param paths
+	 * @return
+	 */
+	@Override
+	public List<DocumentFile> loadFiles(String... paths) {
+		try {
+			return super.loadFiles(paths);
+		} finally {
+			if (modulesManager != null) {
+				modulesManager.flush();
+			}
+		}
+	}
+
+	/**
+	 * Flushes the ModulesManager, if one was provided, once the files have been loaded.
+	 *
+	 * @param rootPath
+	 * @param files
+	 * @return
+	 */
+	@Override
+	public List<DocumentFile> loadFiles(Path rootPath, List<Path> files) {
+		try {
+			return super.loadFiles(rootPath, files);
+		} finally {
+			if (modulesManager != null) {
+				modulesManager.flush();
+			}
+		}
+	}
+
 	protected void initializeAssetFileLoader(ModulesManager modulesManager) {
+		this.modulesManager = modulesManager;
 		addFileFilter(new DefaultFileFilter());
 		addDocumentFileProcessor(new ExtDocumentFileProcessor());
 		if (modulesManager != null) {
@@ -182,22 +182,42 @@ public abstract class BaseModulesFinder extends LoggingObject implements Modules
         this.namespaceFilenameFilter = namespaceFilenameFilter;
     }
 
+    public String getServicesPath() {
+        return servicesPath;
+    }
+
     public void setServicesPath(String servicesPath) {
         this.servicesPath = servicesPath;
     }
 
+    public String getOptionsPath() {
+        return optionsPath;
+    }
+
     public void setOptionsPath(String optionsPath) {
         this.optionsPath = optionsPath;
     }
 
+    public String getNamespacesPath() {
+        return namespacesPath;
+    }
+
     public void setNamespacesPath(String namespacesPath) {
         this.namespacesPath = namespacesPath;
     }
 
+    public String getTransformsPath() {
+        return transformsPath;
+    }
+
     public void setTransformsPath(String transformsPath) {
         this.transformsPath = transformsPath;
     }
 
+    public String getSchemasPath() {
+        return schemasPath;
+    }
+
     public boolean isIncludeUnrecognizedPathsAsAssetPaths() {
         return includeUnrecognizedPathsAsAssetPaths;
     }
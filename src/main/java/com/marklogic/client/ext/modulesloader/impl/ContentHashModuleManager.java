@@ -0,0 +1,145 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * ModulesManager implementation that determines whether a file has been modified based on a CRC32 checksum of its
+ * content instead of its last-modified timestamp. This is useful when modules are loaded from a fresh checkout - e.g.
+ * in a CI build - where every file has a new timestamp but only a few files have actually changed.
+ * <p>
+ * For each file that is loaded, the file's length, last-modified timestamp, and checksum are stored. When the length
+ * and timestamp of a file are the same as what was stored, the file is considered to be unmodified and its content is
+ * not read. Otherwise, the checksum of the file's content is computed and compared to the stored checksum.
+ */
+public class ContentHashModuleManager extends PropertiesModuleManager {
+
+	public static final String DEFAULT_FILE_PATH = "build/ml-javaclient-util/module-checksums.properties";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// The value - length, timestamp, and checksum - of each file that was found to be modified, so that the checksum
+	// doesn't need to be computed again when saving, and so that what's saved is what was checked
+	private Map<String, String> checkedValues = new ConcurrentHashMap<>();
+
+	public ContentHashModuleManager() {
+		this(DEFAULT_FILE_PATH);
+	}
+
+	public ContentHashModuleManager(String propertiesFilePath) {
+		super(propertiesFilePath);
+	}
+
+	@Override
+	public boolean hasFileBeenModifiedSinceLastLoaded(File file) {
+		if (isBeforeMinimumFileTimestampToLoad(file)) {
+			return false;
+		}
+
+		String key = buildKey(file);
+		String value = getProperties().getProperty(key);
+		if (value == null) {
+			return modified(key, readValue(file));
+		}
+
+		String[] tokens = value.split(",");
+		if (tokens.length != 3) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(format("Unrecognized value for file '%s': %s", file.getAbsolutePath(), value));
+			}
+			return modified(key, readValue(file));
+		}
+
+		long length = file.length();
+		long lastModified = file.lastModified();
+		try {
+			if (length == Long.parseLong(tokens[0]) && lastModified == Long.parseLong(tokens[1])) {
+				return false;
+			}
+
+			long storedChecksum = Long.parseLong(tokens[2], 16);
+			long checksum = computeChecksum(file);
+			String newValue = buildValue(length, lastModified, checksum);
+			if (checksum == storedChecksum) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(format("File '%s' has a new timestamp but its content has not changed", file.getAbsolutePath()));
+				}
+				// Remember the new length and timestamp so the content doesn't need to be read again next time; this is
+				// only persisted right away when saves are buffered, as it's otherwise a rewrite of the whole file
+				if (isBufferingSaves()) {
+					saveProperty(key, newValue);
+				} else {
+					getProperties().setProperty(key, newValue);
+				}
+				return false;
+			}
+			return modified(key, newValue);
+		} catch (NumberFormatException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(format("Unable to parse value for file '%s': %s", file.getAbsolutePath(), value));
+			}
+			return modified(key, readValue(file));
+		}
+	}
+
+	private boolean modified(String key, String checkedValue) {
+		checkedValues.put(key, checkedValue);
+		return true;
+	}
+
+	/**
+	 * The date is ignored; the file's length, last-modified timestamp, and checksum are stored instead. These are the
+	 * values that were read when the file was found to be modified, so that if the file changes again before it's
+	 * saved, the next check sees a different length or timestamp and reads the file again.
+	 *
+	 * @param file
+	 * @param date
+	 */
+	@Override
+	public void saveLastLoadedTimestamp(File file, Date date) {
+		String key = buildKey(file);
+		String value = checkedValues.remove(key);
+		saveProperty(key, value != null ? value : readValue(file));
+	}
+
+	/**
+	 * The length and timestamp are read before the content, so that a change made while the content is being read
+	 * results in a timestamp that doesn't match the stored one.
+	 *
+	 * @param file
+	 * @return
+	 */
+	protected String readValue(File file) {
+		long length = file.length();
+		long lastModified = file.lastModified();
+		return buildValue(length, lastModified, computeChecksum(file));
+	}
+
+	protected String buildValue(long length, long lastModified, long checksum) {
+		return length + "," + lastModified + "," + Long.toHexString(checksum);
+	}
+
+	/**
+	 * @param file
+	 * @return a CRC32 checksum of the file's content
+	 */
+	protected long computeChecksum(File file) {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException("Unable to compute checksum for file: " + file.getAbsolutePath() + "; cause: " + ex.getMessage(), ex);
+		}
+		return crc.getValue();
+	}
+}
@@ -9,6 +9,7 @@ import com.marklogic.client.admin.ServerConfigurationManager.UpdatePolicy;
 import com.marklogic.client.ext.file.DefaultDocumentFileReader;
 import com.marklogic.client.ext.file.DocumentFile;
 import com.marklogic.client.ext.file.DocumentFileReader;
+import com.marklogic.client.ext.helper.CompletionTracker;
 import com.marklogic.client.ext.helper.FilenameUtil;
 import com.marklogic.client.ext.helper.LoggingObject;
 import com.marklogic.client.ext.modulesloader.*;
@@ -27,15 +28,47 @@ import org.springframework.util.FileCopyUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
  * Default implementation of ModulesLoader. Loads everything except assets via the REST API. Assets are either loaded
  * via an XccAssetLoader (faster) or via a RestApiAssetLoader (slower, but doesn't require additional privileges).
+ * <p>
+ * Modules are loaded in phases - REST properties, namespaces, assets, query options, transforms, and services. By
+ * default, once the REST properties have been loaded, the other phases run concurrently on the taskExecutor, with
+ * query options waiting for namespaces to be loaded; see buildPhaseScheduler. Set concurrentPhases to false to run
+ * the phases one at a time on the calling thread instead.
+ * <p>
+ * Within the query options, transforms, and services phases, each module is loaded by its own task on the
+ * taskExecutor - reading the file, replacing tokens, parsing its metadata, and writing it - so that preparing hundreds
+ * of modules isn't limited to a single thread. loadModules waits for every such task to finish; the result of each one
+ * is available via getModuleLoadResults.
+ * <p>
+ * Once the modules have been loaded, the default taskExecutor is kept for the next call to loadModules unless
+ * shutdownTaskExecutorAfterLoadingModules is set to true, so that a program that loads modules repeatedly - such as one
+ * that watches for changes - doesn't create and destroy a thread pool each time. The default taskExecutor uses daemon
+ * threads that time out when idle. A taskExecutor that was set on this class is shut down after loading modules unless
+ * shutdownTaskExecutorAfterLoadingModules is set to false.
  */
 public class DefaultModulesLoader extends LoggingObject implements ModulesLoader {
 
+	public final static String PROPERTIES_PHASE = "properties";
+	public final static String NAMESPACES_PHASE = "namespaces";
+	public final static String ASSETS_PHASE = "assets";
+	public final static String OPTIONS_PHASE = "options";
+	public final static String TRANSFORMS_PHASE = "transforms";
+	public final static String SERVICES_PHASE = "services";
+
 	private DatabaseClient client;
 	private AssetFileLoader assetFileLoader;
 	private ExtensionMetadataProvider extensionMetadataProvider;
@@ -44,8 +77,15 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 
 	// For parallelizing writes of REST API modules - e.g. services/options/transforms
 	private TaskExecutor taskExecutor;
+	private boolean defaultTaskExecutor = false;
 	private int taskThreadCount = 8;
-	private boolean shutdownTaskExecutorAfterLoadingModules = true;
+	// When not set, only a taskExecutor that was set on this class is shut down after loading modules
+	private Boolean shutdownTaskExecutorAfterLoadingModules;
+	private int threadKeepAliveSeconds = 60;
+
+	// Tracks the writes submitted via executeTask, so they can be waited for without shutting down the taskExecutor
+	private final CompletionTracker completionTracker = new CompletionTracker();
+	private boolean concurrentPhases = true;
 
 	// For replacing tokens in options/services/transforms
 	// Tokens in asset modules are replaced via the AssetFileLoader instance
@@ -53,6 +93,10 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 
 	private List<LoadModulesFailureListener> failureListeners = new ArrayList<>();
 
+	// Tasks submitted via submitModuleTask during the current call to loadModules
+	private final Queue<CompletableFuture<ModuleLoadResult>> moduleTasks = new ConcurrentLinkedQueue<>();
+	private List<ModuleLoadResult> moduleLoadResults = new ArrayList<>();
+
 	/**
 	 * When set to true, exceptions thrown while loading transforms and resources will be caught and logged, and the
 	 * module will be updated as having been loaded. This is useful when running a program that watches modules for changes, as it
@@ -97,11 +141,17 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 			tpte.setAwaitTerminationSeconds(60 * 10);
 			tpte.setWaitForTasksToCompleteOnShutdown(true);
 
+			// The pool is kept between calls to loadModules, so it must not keep the JVM from exiting
+			tpte.setDaemon(true);
+			tpte.setAllowCoreThreadTimeOut(true);
+			tpte.setKeepAliveSeconds(threadKeepAliveSeconds);
+
 			tpte.afterPropertiesSet();
 			this.taskExecutor = tpte;
 		} else {
 			this.taskExecutor = new SyncTaskExecutor();
 		}
+		this.defaultTaskExecutor = true;
 	}
 
 	/**
@@ -114,45 +164,150 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		if (logger.isDebugEnabled()) {
 			logger.debug("Loading modules from base directory: " + baseDir);
 		}
+
+		Set<Resource> loadedModules = loadModules(modulesFinder.findModules(baseDir), client);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Finished loading modules from base directory: " + baseDir);
+		}
+
+		return loadedModules;
+	}
+
+	/**
+	 * Load the given modules via the given DatabaseClient. The Modules don't need to come from a ModulesFinder - e.g. a
+	 * ModulesWatcher constructs a Modules with only the files that have changed. If the selectedAssets of the Modules
+	 * are set, only those files are loaded from the asset directories, instead of every file in them.
+	 *
+	 * @param modules
+	 * @param client
+	 * @return
+	 */
+	public Set<Resource> loadModules(Modules modules, DatabaseClient client) {
 		setDatabaseClient(client);
 
 		if (modulesManager != null) {
 			modulesManager.initialize();
 		}
-
-		Modules modules = modulesFinder.findModules(baseDir);
+		boolean buffered = bufferModulesManagerSaves();
 
 		if (taskExecutor == null) {
 			initializeDefaultTaskExecutor();
 		}
 
-		Set<Resource> loadedModules = new HashSet<>();
-		loadProperties(modules, loadedModules);
-		loadNamespaces(modules, loadedModules);
-		loadAssets(modules, loadedModules);
+		// Phases may add to this concurrently
+		Set<Resource> loadedModules = ConcurrentHashMap.newKeySet();
+		moduleTasks.clear();
+		try {
+			PhaseScheduler scheduler = buildPhaseScheduler(modules, loadedModules);
+			try {
+				scheduler.run(concurrentPhases ? taskExecutor : new SyncTaskExecutor());
+			} finally {
+				waitForModuleTasks();
+			}
+			waitForTaskExecutorToFinish();
+		} finally {
+			if (modulesManager != null) {
+				modulesManager.flush();
+			}
+			if (buffered) {
+				((PropertiesModuleManager) modulesManager).endBufferingSaves();
+			}
+		}
 
-		loadQueryOptions(modules, loadedModules);
-		loadTransforms(modules, loadedModules);
-		loadResources(modules, loadedModules);
+		return new HashSet<>(loadedModules);
+	}
 
-		waitForTaskExecutorToFinish();
+	/**
+	 * loadModules flushes the ModulesManager once every module has been loaded, so while it's running, a
+	 * PropertiesModuleManager can buffer its saves instead of rewriting its properties file for every module. Saves
+	 * made by any other means - e.g. calling installService directly - are not buffered, unless bufferSaves has been
+	 * set to true on the PropertiesModuleManager. The buffering nests, so a PropertiesModuleManager that's shared by
+	 * other loaders keeps buffering until each of them is done.
+	 *
+	 * @return true if buffering was begun, in which case it must be ended once the ModulesManager is flushed
+	 */
+	protected boolean bufferModulesManagerSaves() {
+		if (modulesManager instanceof PropertiesModuleManager) {
+			((PropertiesModuleManager) modulesManager).beginBufferingSaves();
+			return true;
+		}
+		return false;
+	}
 
-		if (logger.isDebugEnabled()) {
-			logger.debug("Finished loading modules from base directory: " + baseDir);
+	/**
+	 * REST properties are loaded first, as they can affect how everything else is loaded - e.g. whether query options
+	 * are validated. Query options also wait for namespaces, as validating options may depend on namespace prefixes.
+	 * Everything else is independent; static checks of assets are part of the assets phase. Subclasses can override
+	 * this to add phases of their own.
+	 *
+	 * @param modules
+	 * @param loadedModules must be threadsafe
+	 * @return
+	 */
+	protected PhaseScheduler buildPhaseScheduler(Modules modules, Set<Resource> loadedModules) {
+		return new PhaseScheduler()
+			.addPhase(PROPERTIES_PHASE, () -> loadProperties(modules, loadedModules))
+			.addPhase(NAMESPACES_PHASE, () -> loadNamespaces(modules, loadedModules), PROPERTIES_PHASE)
+			.addPhase(ASSETS_PHASE, () -> loadAssets(modules, loadedModules), PROPERTIES_PHASE)
+			.addPhase(OPTIONS_PHASE, () -> loadQueryOptions(modules, loadedModules), PROPERTIES_PHASE, NAMESPACES_PHASE)
+			.addPhase(TRANSFORMS_PHASE, () -> loadTransforms(modules, loadedModules), PROPERTIES_PHASE)
+			.addPhase(SERVICES_PHASE, () -> loadResources(modules, loadedModules), PROPERTIES_PHASE);
+	}
+
+	/**
+	 * Waits for every task submitted via submitModuleTask to finish. This is done on the thread that called
+	 * loadModules, rather than within a phase, so that a phase never ties up a thread of the taskExecutor waiting for
+	 * tasks that need a thread of the same taskExecutor. If any task failed, the first failure is thrown once every task
+	 * has finished.
+	 */
+	protected void waitForModuleTasks() {
+		List<ModuleLoadResult> results = new ArrayList<>();
+		RuntimeException firstFailure = null;
+		long totalMillis = 0;
+		CompletableFuture<ModuleLoadResult> future;
+		while ((future = moduleTasks.poll()) != null) {
+			try {
+				ModuleLoadResult result = future.join();
+				results.add(result);
+				totalMillis += result.getDurationMillis();
+			} catch (CompletionException ex) {
+				if (firstFailure == null) {
+					Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+					firstFailure = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+				}
+			}
 		}
+		this.moduleLoadResults = results;
 
-		return loadedModules;
+		if (logger.isDebugEnabled() && !results.isEmpty()) {
+			logger.debug(format("Finished %d module tasks; total time spent in tasks: %dms", results.size(), totalMillis));
+		}
+		if (firstFailure != null) {
+			throw firstFailure;
+		}
 	}
 
 	/**
 	 * If an AsyncTaskExecutor is used for loading options/services/transforms, we need to wait for the tasks to complete
-	 * before we e.g. release the DatabaseClient.
+	 * before we e.g. release the DatabaseClient. The taskExecutor is then shut down if
+	 * shutdownTaskExecutorAfterLoadingModules is true. If it hasn't been set, the default taskExecutor is kept for
+	 * reuse, while a taskExecutor that was set on this class is shut down.
 	 */
 	public void waitForTaskExecutorToFinish() {
-		if (shutdownTaskExecutorAfterLoadingModules) {
+		try {
+			completionTracker.awaitCompletion();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for modules to be loaded", ie);
+		}
+		boolean shutdown = shutdownTaskExecutorAfterLoadingModules != null ?
+			shutdownTaskExecutorAfterLoadingModules : !defaultTaskExecutor;
+		if (shutdown) {
 			if (taskExecutor instanceof ExecutorConfigurationSupport) {
 				((ExecutorConfigurationSupport) taskExecutor).shutdown();
 				taskExecutor = null;
+				defaultTaskExecutor = false;
 			} else if (taskExecutor instanceof DisposableBean) {
 				try {
 					((DisposableBean) taskExecutor).destroy();
@@ -160,9 +315,10 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 					logger.warn("Unexpected exception while calling destroy() on taskExecutor: " + ex.getMessage(), ex);
 				}
 				taskExecutor = null;
+				defaultTaskExecutor = false;
 			}
 		} else if (logger.isDebugEnabled()) {
-			logger.debug("shutdownTaskExecutorAfterLoadingModules is set to false, so not shutting down taskExecutor");
+			logger.debug("Not shutting down taskExecutor after loading modules, so keeping it for reuse");
 		}
 	}
 
@@ -278,6 +434,8 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 	}
 
 	/**
+	 * Loads every file in the asset directories, unless the Modules has selectedAssets, in which case only those are
+	 * loaded.
 	 *
 	 * @param modules
 	 * @param loadedModules
@@ -320,7 +478,8 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 			}
 		}
 
-		List<DocumentFile> list = assetFileLoader.loadFiles(paths);
+		List<DocumentFile> list = modules.getSelectedAssets() != null ?
+			loadSelectedAssets(dirs, modules.getSelectedAssets()) : assetFileLoader.loadFiles(paths);
 		if (staticChecker != null && !list.isEmpty()) {
 			try {
 				staticChecker.checkLoadedAssets(list);
@@ -338,6 +497,36 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		}
 	}
 
+	/**
+	 * Loads each of the given assets relative to the asset directory that contains it, so that each asset gets the same
+	 * URI as it would if its whole asset directory were loaded.
+	 *
+	 * @param dirs
+	 * @param assets
+	 * @return
+	 */
+	protected List<DocumentFile> loadSelectedAssets(List<Resource> dirs, List<Resource> assets) {
+		List<DocumentFile> list = new ArrayList<>();
+		for (Resource dir : dirs) {
+			File dirFile = getFileFromResource(dir);
+			if (dirFile == null) {
+				continue;
+			}
+			Path dirPath = dirFile.toPath().toAbsolutePath().normalize();
+			List<Path> files = new ArrayList<>();
+			for (Resource asset : assets) {
+				File f = getFileFromResource(asset);
+				if (f != null && f.toPath().toAbsolutePath().normalize().startsWith(dirPath)) {
+					files.add(f.toPath());
+				}
+			}
+			if (!files.isEmpty()) {
+				list.addAll(assetFileLoader.loadFiles(dirPath, files));
+			}
+		}
+		return list;
+	}
+
 	/**
 	 *
 	 * @param modules
@@ -349,9 +538,7 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		}
 
 		for (Resource r : modules.getOptions()) {
-			if (installQueryOptions(r) != null) {
-				loadedModules.add(r);
-			}
+			submitModuleTask(r, loadedModules, () -> installQueryOptions(r, this::runTask));
 		}
 	}
 
@@ -366,21 +553,14 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		}
 
 		for (Resource r : modules.getTransforms()) {
-			try {
-				ExtensionMetadataAndParams emap = extensionMetadataProvider.provideExtensionMetadataAndParams(r);
-				if (installTransform(r, emap.metadata) != null) {
-					loadedModules.add(r);
-				}
-			} catch (RuntimeException e) {
-				if (catchExceptions) {
-					logger.warn("Unable to load module from file: " + r.getFilename() + "; cause: " + e.getMessage(), e);
-					// update the timestamp so that mlWatch doesn't keep trying again and again
-					loadedModules.add(r);
-					updateTimestamp(r);
-				} else {
-					throw e;
+			submitModuleTask(r, loadedModules, () -> {
+				try {
+					ExtensionMetadataAndParams emap = extensionMetadataProvider.provideExtensionMetadataAndParams(r);
+					return installTransform(r, emap.metadata, this::runTask);
+				} catch (RuntimeException e) {
+					return handleModuleFailure(r, e);
 				}
-			}
+			});
 		}
 	}
 
@@ -395,22 +575,62 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		}
 
 		for (Resource r : modules.getServices()) {
-			try {
-				ExtensionMetadataAndParams emap = extensionMetadataProvider.provideExtensionMetadataAndParams(r);
-				if (installService(r, emap.metadata, emap.methods.toArray(new MethodParameters[]{})) != null) {
-					loadedModules.add(r);
+			submitModuleTask(r, loadedModules, () -> {
+				try {
+					ExtensionMetadataAndParams emap = extensionMetadataProvider.provideExtensionMetadataAndParams(r);
+					return installService(r, emap.metadata, this::runTask, emap.methods.toArray(new MethodParameters[]{}));
+				} catch (RuntimeException e) {
+					return handleModuleFailure(r, e);
 				}
-			} catch (RuntimeException e) {
-				if (catchExceptions) {
-					logger.warn("Unable to load module from file: " + r.getFilename() + "; cause: " + e.getMessage(), e);
-					// update the timestamp so that mlWatch doesn't keep trying again and again
-					loadedModules.add(r);
-					updateTimestamp(r);
-				} else {
-					throw e;
+			});
+		}
+	}
+
+	/**
+	 * Submits a task to the taskExecutor that loads a single module via the given installer, which returns the
+	 * Resource if it was installed and null if it was skipped. The installer should do all of its work - including
+	 * writing the module - on the thread that runs it. An installed Resource is added to loadedModules.
+	 *
+	 * @param r
+	 * @param loadedModules must be threadsafe
+	 * @param installer
+	 * @return
+	 */
+	protected Future<ModuleLoadResult> submitModuleTask(Resource r, Set<Resource> loadedModules, Supplier<Resource> installer) {
+		if (taskExecutor == null) {
+			initializeDefaultTaskExecutor();
+		}
+		CompletableFuture<ModuleLoadResult> future = CompletableFuture.supplyAsync(() -> {
+			long start = System.currentTimeMillis();
+			boolean installed = installer.get() != null;
+			long duration = System.currentTimeMillis() - start;
+			if (installed) {
+				loadedModules.add(r);
+				if (logger.isDebugEnabled()) {
+					logger.debug(format("Loaded module from file %s in %dms", r.getFilename(), duration));
 				}
 			}
+			return new ModuleLoadResult(r, installed, duration);
+		}, taskExecutor);
+		moduleTasks.add(future);
+		return future;
+	}
+
+	/**
+	 * If catchExceptions is true, the failure is logged and the module's timestamp is updated so that mlWatch doesn't
+	 * keep trying to load it again and again; otherwise, the failure is rethrown.
+	 *
+	 * @param r
+	 * @param e
+	 * @return
+	 */
+	protected Resource handleModuleFailure(Resource r, RuntimeException e) {
+		if (!catchExceptions) {
+			throw e;
 		}
+		logger.warn("Unable to load module from file: " + r.getFilename() + "; cause: " + e.getMessage(), e);
+		updateTimestamp(r);
+		return r;
 	}
 
 	/**
@@ -438,6 +658,18 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 	 * @return
 	 */
 	public Resource installService(Resource r, final ExtensionMetadata metadata, final MethodParameters... methodParams) {
+		return installService(r, metadata, this::executeTask, methodParams);
+	}
+
+	/**
+	 * @param r
+	 * @param metadata
+	 * @param writer       runs the Runnable that writes the service
+	 * @param methodParams
+	 * @return
+	 */
+	protected Resource installService(Resource r, final ExtensionMetadata metadata, Consumer<Runnable> writer,
+	                                  final MethodParameters... methodParams) {
 		if (!hasFileBeenModified(r) || ignoreResource(r)) {
 			return null;
 		}
@@ -449,7 +681,7 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		logger.info(String.format("Loading %s resource extension from file %s", resourceName, r.getFilename()));
 
 		StringHandle h = new StringHandle(readAndReplaceTokens(r));
-		executeTask(() -> extMgr.writeServices(resourceName, h, metadata, methodParams));
+		writer.accept(() -> extMgr.writeServices(resourceName, h, metadata, methodParams));
 
 		updateTimestamp(r);
 		return r;
@@ -462,6 +694,16 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 	 * @return
 	 */
 	public Resource installTransform(Resource r, final ExtensionMetadata metadata) {
+		return installTransform(r, metadata, this::executeTask);
+	}
+
+	/**
+	 * @param r
+	 * @param metadata
+	 * @param writer   runs the Runnable that writes the transform
+	 * @return
+	 */
+	protected Resource installTransform(Resource r, final ExtensionMetadata metadata, Consumer<Runnable> writer) {
 		if (!hasFileBeenModified(r) || ignoreResource(r)) {
 			return null;
 		}
@@ -471,7 +713,7 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		logger.info(String.format("Loading %s transform from resource %s", transformName, filename));
 
 		StringHandle h = new StringHandle(readAndReplaceTokens(r));
-		executeTask(() -> {
+		writer.accept(() -> {
             if (FilenameUtil.isXslFile(filename)) {
                 mgr.writeXSLTransform(transformName, h, metadata);
             } else if (FilenameUtil.isJavascriptFile(filename)) {
@@ -491,6 +733,15 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 	 * @return
 	 */
 	public Resource installQueryOptions(Resource r) {
+		return installQueryOptions(r, this::executeTask);
+	}
+
+	/**
+	 * @param r
+	 * @param writer runs the Runnable that writes the query options
+	 * @return
+	 */
+	protected Resource installQueryOptions(Resource r, Consumer<Runnable> writer) {
 		if (!hasFileBeenModified(r) || ignoreResource(r)) {
 			return null;
 		}
@@ -501,7 +752,7 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		final QueryOptionsManager mgr = client.newServerConfigManager().newQueryOptionsManager();
 
 		StringHandle h = new StringHandle(readAndReplaceTokens(r));
-		executeTask(() -> {
+		writer.accept(() -> {
             if (filename.endsWith(".json")) {
                 mgr.writeOptions(name, h.withFormat(Format.JSON));
             } else {
@@ -518,7 +769,7 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 	protected String readAndReplaceTokens(Resource r) {
 		String content;
 		try {
-			content = new String(FileCopyUtils.copyToByteArray(r.getInputStream()));
+			content = new String(FileCopyUtils.copyToByteArray(r.getInputStream()), StandardCharsets.UTF_8);
 		} catch (IOException e) {
 			throw new RuntimeException("Unable to read content from: " + r.getDescription() + "; cause: " + e.getMessage(), e);
 		}
@@ -540,14 +791,28 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		if (taskExecutor == null) {
 			initializeDefaultTaskExecutor();
 		}
-		taskExecutor.execute(() -> {
-			try {
-				r.run();
-			}
-			catch(Exception e) {
-				failureListeners.forEach(listener -> listener.processFailure(e));
-			}
-		});
+		Runnable tracked = completionTracker.track(() -> runTask(r));
+		try {
+			taskExecutor.execute(tracked);
+		} catch (RuntimeException ex) {
+			completionTracker.finished();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Runs the Runnable on the calling thread, passing any exception it throws to each failure listener. Used for
+	 * writing a module from within a task that's already running on the taskExecutor.
+	 *
+	 * @param r
+	 */
+	protected void runTask(Runnable r) {
+		try {
+			r.run();
+		}
+		catch(Exception e) {
+			failureListeners.forEach(listener -> listener.processFailure(e));
+		}
 	}
 
 	/**
@@ -655,8 +920,13 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		return staticChecker;
 	}
 
+	public TaskExecutor getTaskExecutor() {
+		return taskExecutor;
+	}
+
 	public void setTaskExecutor(TaskExecutor taskExecutor) {
 		this.taskExecutor = taskExecutor;
+		this.defaultTaskExecutor = false;
 	}
 
 	public void setTaskThreadCount(int taskThreadCount) {
@@ -667,6 +937,18 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		this.shutdownTaskExecutorAfterLoadingModules = shutdownTaskExecutorAfterLoadingModules;
 	}
 
+	public void setThreadKeepAliveSeconds(int threadKeepAliveSeconds) {
+		this.threadKeepAliveSeconds = threadKeepAliveSeconds;
+	}
+
+	public boolean isConcurrentPhases() {
+		return concurrentPhases;
+	}
+
+	public void setConcurrentPhases(boolean concurrentPhases) {
+		this.concurrentPhases = concurrentPhases;
+	}
+
 	public void setAssetFileLoader(AssetFileLoader assetFileLoader) {
 		this.assetFileLoader = assetFileLoader;
 	}
@@ -699,6 +981,13 @@ public class DefaultModulesLoader extends LoggingObject implements ModulesLoader
 		}
 	}
 
+	/**
+	 * @return the result of each module task from the most recent call to loadModules, excluding tasks that failed
+	 */
+	public List<ModuleLoadResult> getModuleLoadResults() {
+		return moduleLoadResults;
+	}
+
 	public AssetFileLoader getAssetFileLoader() {
 		return assetFileLoader;
 	}
@@ -0,0 +1,32 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Outcome of the task that loaded a single query options, transform, or service module - whether the module was
+ * installed, as opposed to being skipped because it hadn't been modified, and how long the whole task took.
+ */
+public class ModuleLoadResult {
+
+	private Resource resource;
+	private boolean installed;
+	private long durationMillis;
+
+	public ModuleLoadResult(Resource resource, boolean installed, long durationMillis) {
+		this.resource = resource;
+		this.installed = installed;
+		this.durationMillis = durationMillis;
+	}
+
+	public Resource getResource() {
+		return resource;
+	}
+
+	public boolean isInstalled() {
+		return installed;
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+}
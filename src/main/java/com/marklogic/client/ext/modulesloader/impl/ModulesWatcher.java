@@ -0,0 +1,378 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.ext.helper.LoggingObject;
+import com.marklogic.client.ext.modulesloader.Modules;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches one or more modules base directories via a WatchService and loads modules as soon as their files change,
+ * instead of finding and checking every module each time.
+ * <p>
+ * File events tend to arrive in bursts - an editor saving a file, or a branch being checked out - so once an event
+ * arrives, events are collected until none has arrived for debounceMillis, or until maxDebounceMillis has passed. Each
+ * changed file is then mapped to its type of module based on the same layout that the modulesFinder uses - services,
+ * options, transforms, namespaces, the REST properties file, or an asset in an asset directory - and only those files
+ * are loaded, together, via the DefaultModulesLoader; changed assets are passed to it as selectedAssets. Deleted
+ * files, hidden files, and backup files ending in "~" are ignored. If the WatchService loses track of events, every
+ * module in the affected base directory is loaded instead.
+ * <p>
+ * The DefaultModulesLoader should have a ModulesManager so that files that haven't actually been modified are skipped,
+ * and should have catchExceptions set to true so that one bad module doesn't keep the others from being loaded.
+ */
+public class ModulesWatcher extends LoggingObject {
+
+	public enum ModuleType {
+		ASSET, SERVICE, TRANSFORM, OPTIONS, NAMESPACE, PROPERTIES
+	}
+
+	private final DefaultModulesLoader modulesLoader;
+	private final DatabaseClient client;
+	private final List<Path> baseDirs = new ArrayList<>();
+
+	private BaseModulesFinder modulesFinder = new DefaultModulesFinder();
+	private long debounceMillis = 100;
+	private long maxDebounceMillis = 2000;
+
+	private WatchService watchService;
+	private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+	private Thread watchThread;
+	private volatile boolean running = false;
+
+	public ModulesWatcher(DefaultModulesLoader modulesLoader, DatabaseClient client, String... baseDirs) {
+		this.modulesLoader = modulesLoader;
+		this.client = client;
+		for (String baseDir : baseDirs) {
+			this.baseDirs.add(new File(baseDir).toPath().toAbsolutePath().normalize());
+		}
+	}
+
+	/**
+	 * Registers every directory under each base directory with a new WatchService, and then starts watching for changes
+	 * on a daemon thread.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+			for (Path baseDir : baseDirs) {
+				registerDirectories(baseDir, null);
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException("Unable to watch modules directories: " + ex.getMessage(), ex);
+		}
+		running = true;
+		watchThread = new Thread(this::watch, "modules-watcher");
+		watchThread.setDaemon(true);
+		watchThread.start();
+		if (logger.isInfoEnabled()) {
+			logger.info(format("Watching %d directories for modules changes", watchedDirs.size()));
+		}
+	}
+
+	/**
+	 * Stops watching, waiting for any modules that are being loaded to finish.
+	 */
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		try {
+			watchService.close();
+		} catch (IOException ex) {
+			logger.warn("Unable to close WatchService: " + ex.getMessage());
+		}
+		try {
+			watchThread.join();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		watchedDirs.clear();
+	}
+
+	protected void watch() {
+		while (running) {
+			try {
+				WatchKey key = watchService.take();
+				Set<Path> changedFiles = new LinkedHashSet<>();
+				Set<Path> overflowedBaseDirs = new LinkedHashSet<>();
+				handleEvents(key, changedFiles, overflowedBaseDirs);
+
+				// Keep collecting events until there's a quiet period, but not forever
+				long deadline = System.currentTimeMillis() + maxDebounceMillis;
+				while (running) {
+					long wait = Math.min(debounceMillis, deadline - System.currentTimeMillis());
+					key = wait > 0 ? watchService.poll(wait, TimeUnit.MILLISECONDS) : null;
+					if (key == null) {
+						break;
+					}
+					handleEvents(key, changedFiles, overflowedBaseDirs);
+				}
+
+				for (Path baseDir : overflowedBaseDirs) {
+					logger.warn("Lost track of file changes, so loading all modules from: " + baseDir);
+					modulesLoader.loadModules(baseDir.toString(), modulesFinder, client);
+				}
+				loadChangedFiles(changedFiles);
+			} catch (ClosedWatchServiceException ex) {
+				break;
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (RuntimeException ex) {
+				logger.error("Unable to load changed modules: " + ex.getMessage(), ex);
+			}
+		}
+	}
+
+	/**
+	 * Collects the files affected by the events for the given key. A new directory is registered, and every file in it
+	 * is considered changed, as files may have been added to it before it was registered.
+	 *
+	 * @param key
+	 * @param changedFiles
+	 * @param overflowedBaseDirs
+	 */
+	protected void handleEvents(WatchKey key, Set<Path> changedFiles, Set<Path> overflowedBaseDirs) {
+		Path dir = watchedDirs.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (dir == null) {
+				continue;
+			}
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				Path baseDir = findBaseDir(dir);
+				if (baseDir != null) {
+					overflowedBaseDirs.add(baseDir);
+				}
+				continue;
+			}
+			Path path = dir.resolve((Path) event.context());
+			if (Files.isDirectory(path)) {
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+					try {
+						registerDirectories(path, changedFiles);
+					} catch (IOException ex) {
+						logger.warn(format("Unable to watch new directory: %s; cause: %s", path, ex.getMessage()));
+					}
+				}
+			} else if (event.kind() != StandardWatchEventKinds.ENTRY_DELETE) {
+				changedFiles.add(path);
+			}
+		}
+		if (!key.reset()) {
+			watchedDirs.remove(key);
+		}
+	}
+
+	/**
+	 * Loads the given files - which should all be under one of the base directories - in one call to the
+	 * DefaultModulesLoader per base directory. Files that aren't modules, or that no longer exist, are ignored.
+	 *
+	 * @param changedFiles
+	 * @return the modules that were loaded
+	 */
+	public Set<Resource> loadChangedFiles(Collection<Path> changedFiles) {
+		Map<Path, Modules> modulesByBaseDir = new LinkedHashMap<>();
+		for (Path file : changedFiles) {
+			Path path = file.toAbsolutePath().normalize();
+			Path baseDir = findBaseDir(path);
+			if (baseDir == null || !Files.isRegularFile(path)) {
+				continue;
+			}
+			ModuleType type = determineModuleType(baseDir, path);
+			if (type == null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring change to file that isn't a module: " + path);
+				}
+				continue;
+			}
+			Modules modules = modulesByBaseDir.computeIfAbsent(baseDir, dir -> newEmptyModules());
+			addModule(modules, type, baseDir, path);
+		}
+
+		Set<Resource> loaded = new HashSet<>();
+		for (Map.Entry<Path, Modules> entry : modulesByBaseDir.entrySet()) {
+			long start = System.currentTimeMillis();
+			Set<Resource> loadedFromBaseDir = modulesLoader.loadModules(entry.getValue(), client);
+			if (logger.isInfoEnabled()) {
+				logger.info(format("Loaded %d changed modules from %s in %dms", loadedFromBaseDir.size(), entry.getKey(),
+					System.currentTimeMillis() - start));
+			}
+			loaded.addAll(loadedFromBaseDir);
+		}
+		return loaded;
+	}
+
+	/**
+	 * Follows the layout used by the modulesFinder - a file directly in the services, options, transforms, or
+	 * namespaces directory, a REST properties file in the base directory, or any file in a directory that isn't one of
+	 * the modulesFinder's recognized paths, which is treated as an asset directory if includeUnrecognizedPathsAsAssetPaths
+	 * is true.
+	 *
+	 * @param baseDir
+	 * @param file
+	 * @return the type of module, or null if the file isn't a module
+	 */
+	public ModuleType determineModuleType(Path baseDir, Path file) {
+		Path relative = baseDir.relativize(file);
+		String name = file.getFileName().toString();
+		if (name.startsWith(".") || name.endsWith("~")) {
+			// Hidden and backup files are typically written by editors
+			return null;
+		}
+		if (relative.getNameCount() == 1) {
+			return "rest-properties.json".equals(name) || "rest-properties.xml".equals(name) ? ModuleType.PROPERTIES : null;
+		}
+
+		String dir = relative.getName(0).toString();
+		boolean direct = relative.getNameCount() == 2;
+		if (dir.equals(modulesFinder.getServicesPath())) {
+			return direct && (name.contains(".xq") || name.endsWith(".sjs")) ? ModuleType.SERVICE : null;
+		} else if (dir.equals(modulesFinder.getTransformsPath())) {
+			return direct && (name.contains(".xq") || name.contains(".xsl") || name.endsWith(".sjs")) ? ModuleType.TRANSFORM : null;
+		} else if (dir.equals(modulesFinder.getOptionsPath())) {
+			return direct && name.contains(".") ? ModuleType.OPTIONS : null;
+		} else if (dir.equals(modulesFinder.getNamespacesPath())) {
+			return direct && name.contains(".") ? ModuleType.NAMESPACE : null;
+		} else if (modulesFinder.getRecognizedPaths().contains(dir)) {
+			return null;
+		}
+		return modulesFinder.isIncludeUnrecognizedPathsAsAssetPaths() ? ModuleType.ASSET : null;
+	}
+
+	protected void addModule(Modules modules, ModuleType type, Path baseDir, Path file) {
+		Resource r = new FileSystemResource(file.toFile());
+		switch (type) {
+			case SERVICE:
+				modules.getServices().add(r);
+				break;
+			case TRANSFORM:
+				modules.getTransforms().add(r);
+				break;
+			case OPTIONS:
+				modules.getOptions().add(r);
+				break;
+			case NAMESPACE:
+				modules.getNamespaces().add(r);
+				break;
+			case PROPERTIES:
+				modules.setPropertiesFile(r);
+				break;
+			case ASSET:
+				if (modulesLoader.getAssetFileLoader() == null) {
+					return;
+				}
+				Resource assetDir = new FileSystemResource(baseDir.resolve(baseDir.relativize(file).getName(0)).toFile());
+				if (!modules.getAssetDirectories().contains(assetDir)) {
+					modules.getAssetDirectories().add(assetDir);
+				}
+				modules.getSelectedAssets().add(r);
+				break;
+		}
+	}
+
+	protected Modules newEmptyModules() {
+		Modules modules = new Modules();
+		modules.setAssetDirectories(new ArrayList<>());
+		modules.setSelectedAssets(new ArrayList<>());
+		modules.setServices(new ArrayList<>());
+		modules.setTransforms(new ArrayList<>());
+		modules.setOptions(new ArrayList<>());
+		modules.setNamespaces(new ArrayList<>());
+		return modules;
+	}
+
+	protected Path findBaseDir(Path path) {
+		for (Path baseDir : baseDirs) {
+			if (path.startsWith(baseDir)) {
+				return baseDir;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param dir
+	 * @param filesFound if not null, every file under the directory is added to this
+	 * @throws IOException
+	 */
+	private void registerDirectories(Path dir, Set<Path> filesFound) throws IOException {
+		if (!Files.isDirectory(dir)) {
+			logger.warn("Not watching directory, as it doesn't exist: " + dir);
+			return;
+		}
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+				WatchKey key = d.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				watchedDirs.put(key, d);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (filesFound != null) {
+					filesFound.add(file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	public BaseModulesFinder getModulesFinder() {
+		return modulesFinder;
+	}
+
+	public void setModulesFinder(BaseModulesFinder modulesFinder) {
+		this.modulesFinder = modulesFinder;
+	}
+
+	public long getDebounceMillis() {
+		return debounceMillis;
+	}
+
+	public void setDebounceMillis(long debounceMillis) {
+		this.debounceMillis = debounceMillis;
+	}
+
+	public long getMaxDebounceMillis() {
+		return maxDebounceMillis;
+	}
+
+	public void setMaxDebounceMillis(long maxDebounceMillis) {
+		this.maxDebounceMillis = maxDebounceMillis;
+	}
+}
@@ -0,0 +1,107 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import com.marklogic.client.ext.helper.LoggingObject;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs a set of named phases on a TaskExecutor, starting each phase as soon as every phase it depends on has finished.
+ * Phases without a dependency between them run concurrently, so the time taken is close to that of the longest chain
+ * of dependent phases rather than the sum of every phase.
+ * <p>
+ * A phase can only depend on phases that were added before it; this also means that when a SyncTaskExecutor is used,
+ * the phases run one at a time in the order in which they were added. If a phase fails, any phase that depends on it
+ * is not run, while every other phase is allowed to finish; run then throws the first failure.
+ */
+public class PhaseScheduler extends LoggingObject {
+
+	private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+	/**
+	 * @param name
+	 * @param runnable
+	 * @param dependsOn names of phases that must finish successfully before this phase is started
+	 * @return
+	 */
+	public PhaseScheduler addPhase(String name, Runnable runnable, String... dependsOn) {
+		for (String dependency : dependsOn) {
+			if (!phases.containsKey(dependency)) {
+				throw new IllegalArgumentException(format("Phase %s depends on unknown phase %s; a phase can only " +
+					"depend on a phase that was added before it", name, dependency));
+			}
+		}
+		phases.put(name, new Phase(name, runnable, dependsOn));
+		return this;
+	}
+
+	/**
+	 * Runs every phase, and waits for all of them to finish.
+	 *
+	 * @param taskExecutor
+	 */
+	public void run(TaskExecutor taskExecutor) {
+		Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+		for (Phase phase : phases.values()) {
+			CompletableFuture<?>[] dependencies = new CompletableFuture<?>[phase.dependsOn.length];
+			for (int i = 0; i < dependencies.length; i++) {
+				dependencies[i] = futures.get(phase.dependsOn[i]);
+			}
+			futures.put(phase.name, CompletableFuture.allOf(dependencies).thenRunAsync(phase, taskExecutor));
+		}
+
+		List<Throwable> failures = new ArrayList<>();
+		for (Map.Entry<String, CompletableFuture<Void>> entry : futures.entrySet()) {
+			try {
+				entry.getValue().join();
+			} catch (CompletionException ex) {
+				Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+				if (!failures.contains(cause)) {
+					failures.add(cause);
+					logger.error(format("Phase %s failed; cause: %s", entry.getKey(), cause.getMessage()));
+				}
+			}
+		}
+
+		if (!failures.isEmpty()) {
+			Throwable first = failures.get(0);
+			if (first instanceof RuntimeException) {
+				throw (RuntimeException) first;
+			} else if (first instanceof Error) {
+				throw (Error) first;
+			}
+			throw new RuntimeException(first);
+		}
+	}
+
+	public List<String> getPhaseNames() {
+		return new ArrayList<>(phases.keySet());
+	}
+
+	private class Phase implements Runnable {
+
+		private final String name;
+		private final Runnable runnable;
+		private final String[] dependsOn;
+
+		Phase(String name, Runnable runnable, String[] dependsOn) {
+			this.name = name;
+			this.runnable = runnable;
+			this.dependsOn = dependsOn;
+		}
+
+		@Override
+		public void run() {
+			long start = System.currentTimeMillis();
+			runnable.run();
+			if (logger.isDebugEnabled()) {
+				logger.debug(format("Finished phase %s in %dms", name, System.currentTimeMillis() - start));
+			}
+		}
+	}
+}
@@ -1,22 +1,53 @@
 package com.marklogic.client.ext.modulesloader.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Date;
 import java.util.Properties;
 
 import com.marklogic.client.ext.helper.LoggingObject;
 import com.marklogic.client.ext.modulesloader.ModulesManager;
 
+/**
+ * Stores the last-loaded timestamp of each module in a properties file.
+ * <p>
+ * By default, the properties file is rewritten every time a timestamp is saved. When bufferSaves is set to true,
+ * each saved timestamp is instead appended to a journal file next to the properties file, and the properties file is
+ * only rewritten when flush() is called - which DefaultModulesLoader and AssetFileLoader do once all modules have
+ * been loaded. If the process dies before flush() is called, the journal is replayed the next time initialize() is
+ * called. The properties file is always written to a temporary file first and then moved into place, so that a
+ * partially written file is never read.
+ * <p>
+ * Saves can also be buffered for a limited time via beginBufferingSaves() and endBufferingSaves(), which is what
+ * DefaultModulesLoader does for the duration of each call to loadModules. These calls nest, so saves stay buffered
+ * until every caller that began buffering has ended it. Reads and saves are threadsafe, so a single instance can be
+ * shared by multiple loaders.
+ */
 public class PropertiesModuleManager extends LoggingObject implements ModulesManager {
 
     public static final String DEFAULT_FILE_PATH = "build/ml-javaclient-util/module-timestamps.properties";
 
+    public static final String JOURNAL_FILE_SUFFIX = ".journal";
+
     private Properties props;
     private String propertiesFilePath;
     private long minimumFileTimestampToLoad;
 
+    private volatile boolean bufferSaves = false;
+    private int bufferingSavesCount = 0;
+    private boolean dirty = false;
+    private Writer journalWriter;
+
     public PropertiesModuleManager() {
         this(DEFAULT_FILE_PATH);
     }
@@ -27,7 +58,7 @@ public class PropertiesModuleManager extends LoggingObject implements ModulesMan
     }
 
     @Override
-    public void initialize() {
+    public synchronized void initialize() {
     	File propertiesFile = new File(propertiesFilePath);
         propertiesFile.getParentFile().mkdirs();
         if (propertiesFile.exists()) {
@@ -48,22 +79,45 @@ public class PropertiesModuleManager extends LoggingObject implements ModulesMan
                 }
             }
         }
+        replayJournal();
+    }
+
+    /**
+     * If a journal file exists, then timestamps were saved but never flushed to the properties file - most likely
+     * because the process died. The entries in the journal are applied on top of the properties file, and the next
+     * call to flush() will write all of them to the properties file.
+     */
+    protected void replayJournal() {
+        File journalFile = getJournalFile();
+        if (journalWriter == null && journalFile.exists()) {
+            if (logger.isInfoEnabled()) {
+                logger.info("Applying unflushed module timestamps from: " + journalFile.getAbsolutePath());
+            }
+            try (FileInputStream fis = new FileInputStream(journalFile)) {
+                props.load(fis);
+                dirty = true;
+            } catch (Exception e) {
+                logger.warn("Unable to load journal, cause: " + e.getMessage());
+            }
+        }
     }
 
-    public void deletePropertiesFile() {
+    public synchronized void deletePropertiesFile() {
+        closeJournalWriter();
+        File journalFile = getJournalFile();
+        if (journalFile.exists()) {
+            journalFile.delete();
+        }
 		File propertiesFile = new File(propertiesFilePath);
         if (propertiesFile.exists()) {
             propertiesFile.delete();
-            props.clear();
         }
+        props.clear();
+        dirty = false;
     }
 
     public boolean hasFileBeenModifiedSinceLastLoaded(File file) {
-    	if (minimumFileTimestampToLoad > 0 && file.lastModified() <= minimumFileTimestampToLoad) {
-    		if (logger.isDebugEnabled()) {
-    			logger.debug(String.format("lastModified for file '%s' is %d, which is before the minimumFileTimestampToLoad of %d",
-				    file.getAbsolutePath(), file.lastModified(), minimumFileTimestampToLoad));
-		    }
+    	if (isBeforeMinimumFileTimestampToLoad(file)) {
     		return false;
 	    }
 
@@ -78,23 +132,158 @@ public class PropertiesModuleManager extends LoggingObject implements ModulesMan
     }
 
     public void saveLastLoadedTimestamp(File file, Date date) {
-        String key = buildKey(file);
-        props.setProperty(key, date.getTime() + "");
+        saveProperty(buildKey(file), date.getTime() + "");
+    }
+
+    /**
+     * Buffers saves until a matching call to endBufferingSaves, regardless of bufferSaves. Each call must be matched by
+     * a call to endBufferingSaves, which should be made once flush() has been called.
+     */
+    public synchronized void beginBufferingSaves() {
+        bufferingSavesCount++;
+    }
+
+    /**
+     * Ends a call to beginBufferingSaves. Saves are no longer buffered once every call to beginBufferingSaves has been
+     * ended, unless bufferSaves is true.
+     */
+    public synchronized void endBufferingSaves() {
+        if (bufferingSavesCount > 0) {
+            bufferingSavesCount--;
+        }
+    }
+
+    /**
+     * @return true if saves are currently appended to the journal, either because bufferSaves is true or because
+     * beginBufferingSaves has been called without a matching call to endBufferingSaves
+     */
+    public synchronized boolean isBufferingSaves() {
+        return bufferSaves || bufferingSavesCount > 0;
+    }
+
+    /**
+     * Sets the given property, and then either appends it to the journal if saves are being buffered, or writes all of
+     * the properties to the properties file.
+     *
+     * @param key
+     * @param value
+     */
+    protected synchronized void saveProperty(String key, String value) {
+        props.setProperty(key, value);
+        if (isBufferingSaves()) {
+            appendToJournal(key, value);
+        } else {
+            saveProperties();
+        }
+    }
+
+    /**
+     * Writes the properties to the properties file if any have been saved since the file was last written, and then
+     * deletes the journal.
+     */
+    @Override
+    public synchronized void flush() {
+        if (dirty || journalWriter != null) {
+            closeJournalWriter();
+            saveProperties();
+            File journalFile = getJournalFile();
+            if (journalFile.exists() && !journalFile.delete()) {
+                logger.warn("Unable to delete journal file: " + journalFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Uses Properties to write the key and value so that both are escaped in the same way that Properties.load expects,
+     * and then drops the comment line that Properties always writes.
+     *
+     * @param key
+     * @param value
+     */
+    protected void appendToJournal(String key, String value) {
+        try {
+            if (journalWriter == null) {
+                journalWriter = new OutputStreamWriter(new FileOutputStream(getJournalFile(), true), StandardCharsets.ISO_8859_1);
+            }
+            Properties entry = new Properties();
+            entry.setProperty(key, value);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            entry.store(baos, null);
+            for (String line : new String(baos.toByteArray(), StandardCharsets.ISO_8859_1).split("\\r?\\n")) {
+                if (!line.startsWith("#") && line.length() > 0) {
+                    journalWriter.write(line);
+                    journalWriter.write('\n');
+                }
+            }
+            journalWriter.flush();
+            dirty = true;
+        } catch (IOException e) {
+            logger.warn("Unable to append to journal, so storing properties instead; cause: " + e.getMessage());
+            saveProperties();
+        }
+    }
+
+    protected void closeJournalWriter() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.close();
+            } catch (IOException e) {
+                logger.warn(e.getMessage());
+            }
+            journalWriter = null;
+        }
+    }
+
+    /**
+     * @param file
+     * @return true if minimumFileTimestampToLoad has been set and the file was last modified before it
+     */
+    protected boolean isBeforeMinimumFileTimestampToLoad(File file) {
+        if (minimumFileTimestampToLoad > 0 && file.lastModified() <= minimumFileTimestampToLoad) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("lastModified for file '%s' is %d, which is before the minimumFileTimestampToLoad of %d",
+                    file.getAbsolutePath(), file.lastModified(), minimumFileTimestampToLoad));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes the current properties to a temporary file, which is then moved to propertiesFilePath.
+     */
+    protected synchronized void saveProperties() {
+        File propertiesFile = new File(propertiesFilePath);
+        File tempFile = new File(propertiesFilePath + ".tmp");
         FileWriter fw = null;
         try {
-            fw = new FileWriter(new File(propertiesFilePath));
+            fw = new FileWriter(tempFile);
             props.store(fw, "");
+            fw.close();
+            fw = null;
+            try {
+                Files.move(tempFile.toPath(), propertiesFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), propertiesFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
         } catch (Exception e) {
             logger.warn("Unable to store properties, cause: " + e.getMessage());
         } finally {
             try {
-                fw.close();
+                if (fw != null) {
+                    fw.close();
+                }
             } catch (Exception e) {
                 logger.warn(e.getMessage());
             }
         }
     }
 
+    protected File getJournalFile() {
+        return new File(propertiesFilePath + JOURNAL_FILE_SUFFIX);
+    }
+
     /**
      * Lower-casing avoids some annoying issues on Windows where sometimes you get "C:" at the start, and other times
      * you get "c:". This of course will be a problem if you for some reason have modules with the same names but
@@ -110,4 +299,20 @@ public class PropertiesModuleManager extends LoggingObject implements ModulesMan
 	public void setMinimumFileTimestampToLoad(long minimumFileTimestampToLoad) {
 		this.minimumFileTimestampToLoad = minimumFileTimestampToLoad;
 	}
+
+	protected Properties getProperties() {
+		return props;
+	}
+
+	public String getPropertiesFilePath() {
+		return propertiesFilePath;
+	}
+
+	public boolean isBufferSaves() {
+		return bufferSaves;
+	}
+
+	public void setBufferSaves(boolean bufferSaves) {
+		this.bufferSaves = bufferSaves;
+	}
 }
@@ -4,8 +4,14 @@ import com.marklogic.client.ext.helper.LoggingObject;
 import org.springframework.beans.factory.config.PlaceholderConfigurerSupport;
 import org.springframework.util.PropertyPlaceholderHelper;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -15,6 +21,12 @@ import java.util.Properties;
  * The propertyPrefix property allows for adhering to the Roxy convention of referencing properties in module text
  * with "@ml." as a prefix. This class does not look for that prefix; rather, the RoxyTokenReplacer subclass does. This
  * class allows for that prefix to be set to anything.
+ *
+ * The first time tokens are replaced, the value of every property is resolved - including any placeholders within
+ * those values - and captured in an immutable snapshot along with a TokenTrie of the property keys. All tokens are
+ * then replaced in a single pass over the text, without any locking, so a single instance can be shared by many
+ * threads. When two tokens start at the same position - e.g. "@ml.color" and "@ml.colors" - the longest one is
+ * replaced. Replaced values are not scanned for further tokens. Call rebuild() if the properties change.
  */
 public class DefaultTokenReplacer extends LoggingObject implements TokenReplacer {
 
@@ -22,6 +34,10 @@ public class DefaultTokenReplacer extends LoggingObject implements TokenReplacer
 	private PropertyPlaceholderHelper helper;
 	private List<PropertiesSource> propertiesSources = new ArrayList<>();
 	private String propertyPrefix;
+	private volatile ResolvedTokens resolvedTokens;
+
+	// Number of chars to buffer when replacing tokens via a Reader and Writer
+	private int bufferSize = TokenTrie.DEFAULT_BUFFER_SIZE;
 
 	public void addPropertiesSource(PropertiesSource source) {
 		this.propertiesSources.add(source);
@@ -46,8 +62,14 @@ public class DefaultTokenReplacer extends LoggingObject implements TokenReplacer
 		}
 	}
 
-	@Override
-	public String replaceTokens(String text) {
+	/**
+	 * Resolves the value of every property - including any placeholders in those values, such as "${color} wagon" -
+	 * and builds a TokenTrie that maps each property key - with the propertyPrefix, if one is set - to its resolved
+	 * value. The result is immutable and can be shared by any number of threads.
+	 *
+	 * @return
+	 */
+	protected ResolvedTokens resolveTokens() {
 		if (properties == null) {
 			initializeProperties();
 		}
@@ -55,21 +77,93 @@ public class DefaultTokenReplacer extends LoggingObject implements TokenReplacer
 			initializeHelper();
 		}
 
-		for (Object key : properties.keySet()) {
-			String skey = propertyPrefix != null ? propertyPrefix + key : key.toString();
-			if (logger.isTraceEnabled()) {
-				logger.trace("Checking for key in text: " + skey);
-			}
-			if (text.contains(skey)) {
-				String value = properties.getProperty(key.toString());
+		Map<String, String> tokensToValues = new HashMap<>();
+		for (String key : properties.stringPropertyNames()) {
+			String value = properties.getProperty(key);
+			try {
 				value = helper.replacePlaceholders(value, properties);
-				if (logger.isDebugEnabled()) {
-					logger.debug(format("Replacing %s with %s", skey, value));
+			} catch (IllegalArgumentException ex) {
+				logger.warn(format("Unable to resolve placeholders in value of property %s, so using value as is; cause: %s", key, ex.getMessage()));
+			}
+			tokensToValues.put(propertyPrefix != null ? propertyPrefix + key : key, value);
+		}
+		return new ResolvedTokens(tokensToValues);
+	}
+
+	/**
+	 * Re-reads the properties from each PropertiesSource - if any have been registered - and resolves all of the tokens
+	 * again. Call this when the properties have changed; otherwise, tokens are only resolved the first time they're
+	 * replaced.
+	 */
+	public synchronized void rebuild() {
+		if (propertiesSources != null && !propertiesSources.isEmpty()) {
+			initializeProperties();
+		}
+		this.resolvedTokens = resolveTokens();
+	}
+
+	@Override
+	public String replaceTokens(String text) {
+		ResolvedTokens tokens = getResolvedTokens();
+		return tokens.tokenTrie.replace(text, token -> lookupValue(tokens, token));
+	}
+
+	/**
+	 * Replaces tokens while copying from the Reader to the Writer, so that the text never needs to be held in memory
+	 * all at once.
+	 *
+	 * @param reader
+	 * @param writer
+	 * @throws IOException
+	 */
+	@Override
+	public void replaceTokens(Reader reader, Writer writer) throws IOException {
+		ResolvedTokens tokens = getResolvedTokens();
+		tokens.tokenTrie.replace(reader, writer, token -> lookupValue(tokens, token), bufferSize);
+	}
+
+	protected ResolvedTokens getResolvedTokens() {
+		ResolvedTokens tokens = resolvedTokens;
+		if (tokens == null) {
+			synchronized (this) {
+				tokens = resolvedTokens;
+				if (tokens == null) {
+					tokens = resolveTokens();
+					resolvedTokens = tokens;
 				}
-				text = text.replace(skey, value);
 			}
 		}
-		return text;
+		return tokens;
+	}
+
+	private String lookupValue(ResolvedTokens tokens, String token) {
+		String value = tokens.tokensToValues.get(token);
+		if (logger.isDebugEnabled()) {
+			logger.debug(format("Replacing %s with %s", token, value));
+		}
+		return value;
+	}
+
+	/**
+	 * Immutable snapshot of every token and the value that it's replaced with.
+	 */
+	protected static class ResolvedTokens {
+
+		private final Map<String, String> tokensToValues;
+		private final TokenTrie tokenTrie;
+
+		public ResolvedTokens(Map<String, String> tokensToValues) {
+			this.tokensToValues = Collections.unmodifiableMap(new HashMap<>(tokensToValues));
+			Map<String, String> tokensToTokens = new HashMap<>();
+			for (String token : tokensToValues.keySet()) {
+				tokensToTokens.put(token, token);
+			}
+			this.tokenTrie = new TokenTrie(tokensToTokens);
+		}
+
+		public Map<String, String> getTokensToValues() {
+			return tokensToValues;
+		}
 	}
 
 	public List<PropertiesSource> getPropertiesSources() {
@@ -82,6 +176,7 @@ public class DefaultTokenReplacer extends LoggingObject implements TokenReplacer
 
 	public void setPropertyPlaceholderHelper(PropertyPlaceholderHelper helper) {
 		this.helper = helper;
+		this.resolvedTokens = null;
 	}
 
 	public Properties getProperties() {
@@ -90,9 +185,19 @@ public class DefaultTokenReplacer extends LoggingObject implements TokenReplacer
 
 	public void setProperties(Properties properties) {
 		this.properties = properties;
+		this.resolvedTokens = null;
 	}
 
 	public void setPropertyPrefix(String propertyPrefix) {
 		this.propertyPrefix = propertyPrefix;
+		this.resolvedTokens = null;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
 	}
 }
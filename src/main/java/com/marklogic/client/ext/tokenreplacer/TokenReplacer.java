@@ -1,5 +1,11 @@
 package com.marklogic.client.ext.tokenreplacer;
 
+import org.springframework.util.FileCopyUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
 /**
  * Interface for objects that replace implementation-defined tokens within a String of text, which typically will be
  * the content of a document before it's written to MarkLogic.
@@ -7,4 +13,23 @@ package com.marklogic.client.ext.tokenreplacer;
 public interface TokenReplacer {
 
     String replaceTokens(String text);
+
+    /**
+     * Replace tokens in the text read from the given Reader, writing the result to the given Writer. Neither the Reader
+     * nor the Writer is closed. The default implementation reads all of the text into a String; implementations that
+     * can replace tokens without doing so are expected to override this.
+     *
+     * @param reader
+     * @param writer
+     * @throws IOException
+     */
+    default void replaceTokens(Reader reader, Writer writer) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[FileCopyUtils.BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, read);
+        }
+        writer.write(replaceTokens(sb.toString()));
+    }
 }
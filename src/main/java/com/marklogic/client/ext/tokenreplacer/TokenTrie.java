@@ -0,0 +1,251 @@
+package com.marklogic.client.ext.tokenreplacer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Immutable trie of tokens that can find and replace every token in a String in a single pass. At each position in
+ * the text, the longest token that starts at that position is replaced, and scanning resumes after that token; text
+ * that is inserted as a replacement is never scanned again.
+ * <p>
+ * Each token is mapped to a key, and the replacement for a token is determined by applying a Function to that key.
+ * This allows a TokenTrie to be built once for a set of properties and then used to replace tokens in many Strings.
+ * <p>
+ * Tokens can also be replaced while copying from a Reader to a Writer, in which case memory use is bounded by the
+ * size of the buffer - which always has room for the longest token - instead of by the size of the text.
+ */
+public class TokenTrie {
+
+	public final static int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final Node root;
+	private final int maxTokenLength;
+
+	/**
+	 * @param tokensToKeys map of each token to find to the key that's passed to the Function that provides the
+	 *                     replacement for that token; empty tokens are ignored
+	 */
+	public TokenTrie(Map<String, String> tokensToKeys) {
+		BuildNode buildRoot = new BuildNode();
+		int max = 0;
+		for (Map.Entry<String, String> entry : tokensToKeys.entrySet()) {
+			String token = entry.getKey();
+			if (token == null || token.isEmpty()) {
+				continue;
+			}
+			BuildNode node = buildRoot;
+			for (int i = 0; i < token.length(); i++) {
+				node = node.children.computeIfAbsent(token.charAt(i), c -> new BuildNode());
+			}
+			node.key = entry.getValue();
+			max = Math.max(max, token.length());
+		}
+		this.root = buildRoot.compile(0);
+		this.maxTokenLength = max;
+	}
+
+	/**
+	 * @param text
+	 * @param replacementFunction given the key of a matched token, returns the text to replace the token with; if it
+	 *                            returns null, the token is left as is
+	 * @return the text with every token replaced; if no tokens were found, the same String that was passed in
+	 */
+	public String replace(String text, Function<String, String> replacementFunction) {
+		if (text == null || root.chars.length == 0) {
+			return text;
+		}
+
+		final int length = text.length();
+		StringBuilder sb = null;
+		int copiedUpTo = 0;
+		int i = 0;
+		while (i < length) {
+			Node match = longestMatch(text, i, length);
+			if (match != null) {
+				int matchEnd = i + match.depth;
+				String replacement = replacementFunction.apply(match.key);
+				if (replacement != null) {
+					if (sb == null) {
+						sb = new StringBuilder(length + 16);
+					}
+					sb.append(text, copiedUpTo, i).append(replacement);
+					copiedUpTo = matchEnd;
+				}
+				i = matchEnd;
+			} else {
+				i++;
+			}
+		}
+
+		if (sb == null) {
+			return text;
+		}
+		sb.append(text, copiedUpTo, length);
+		return sb.toString();
+	}
+
+	/**
+	 * Copies the text from the Reader to the Writer, replacing every token along the way. Neither the Reader nor the
+	 * Writer is closed.
+	 *
+	 * @param reader
+	 * @param writer
+	 * @param replacementFunction see replace(String, Function)
+	 * @param bufferSize          number of chars to read at a time; the buffer is enlarged if needed to fit the
+	 *                            longest token twice over
+	 * @throws IOException
+	 */
+	public void replace(Reader reader, Writer writer, Function<String, String> replacementFunction, int bufferSize) throws IOException {
+		char[] buffer = new char[Math.max(bufferSize, maxTokenLength * 2)];
+		if (root.chars.length == 0) {
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				writer.write(buffer, 0, read);
+			}
+			return;
+		}
+
+		CharBuffer text = CharBuffer.wrap(buffer);
+		int start = 0;
+		int end = 0;
+		boolean eof = false;
+		while (true) {
+			if (start > 0) {
+				System.arraycopy(buffer, start, buffer, 0, end - start);
+				end -= start;
+				start = 0;
+			}
+			while (!eof && end < buffer.length) {
+				int read = reader.read(buffer, end, buffer.length - end);
+				if (read == -1) {
+					eof = true;
+				} else {
+					end += read;
+				}
+			}
+
+			// Only start matching where there are enough chars left to match the longest token, unless there's no more
+			// text to read
+			final int limit = eof ? end : end - maxTokenLength + 1;
+			int copiedUpTo = start;
+			int i = start;
+			while (i < limit) {
+				Node match = longestMatch(text, i, end);
+				if (match != null) {
+					int matchEnd = i + match.depth;
+					String replacement = replacementFunction.apply(match.key);
+					if (replacement != null) {
+						writer.write(buffer, copiedUpTo, i - copiedUpTo);
+						writer.write(replacement);
+						copiedUpTo = matchEnd;
+					}
+					i = matchEnd;
+				} else {
+					i++;
+				}
+			}
+			writer.write(buffer, copiedUpTo, i - copiedUpTo);
+			start = i;
+
+			if (eof && start >= end) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param text
+	 * @param start
+	 * @param end
+	 * @return the node for the longest token starting at the given position, or null if no token starts there
+	 */
+	private Node longestMatch(CharSequence text, int start, int end) {
+		Node node = root;
+		Node match = null;
+		for (int j = start; j < end; j++) {
+			node = node.child(text.charAt(j));
+			if (node == null) {
+				break;
+			}
+			if (node.key != null) {
+				match = node;
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * @return the length of the longest token in this trie
+	 */
+	public int getMaxTokenLength() {
+		return maxTokenLength;
+	}
+
+	/**
+	 * @return true if there are no tokens in this trie
+	 */
+	public boolean isEmpty() {
+		return root.chars.length == 0;
+	}
+
+	/**
+	 * Compiled node; children are kept in a sorted array so they can be found via a binary search.
+	 */
+	private static class Node {
+
+		private final char[] chars;
+		private final Node[] children;
+		private final String key;
+		private final int depth;
+
+		Node(char[] chars, Node[] children, String key, int depth) {
+			this.chars = chars;
+			this.children = children;
+			this.key = key;
+			this.depth = depth;
+		}
+
+		Node child(char c) {
+			int low = 0;
+			int high = chars.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				char midChar = chars[mid];
+				if (midChar < c) {
+					low = mid + 1;
+				} else if (midChar > c) {
+					high = mid - 1;
+				} else {
+					return children[mid];
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Mutable node that's only used while the trie is being built.
+	 */
+	private static class BuildNode {
+
+		private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+		private String key;
+
+		Node compile(int depth) {
+			char[] chars = new char[children.size()];
+			Node[] compiledChildren = new Node[children.size()];
+			int i = 0;
+			for (Map.Entry<Character, BuildNode> entry : children.entrySet()) {
+				chars[i] = entry.getKey();
+				compiledChildren[i] = entry.getValue().compile(depth + 1);
+				i++;
+			}
+			return new Node(chars, compiledChildren, key, depth);
+		}
+	}
+}
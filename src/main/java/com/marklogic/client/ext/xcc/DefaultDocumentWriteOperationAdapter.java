@@ -8,14 +8,41 @@ import com.marklogic.xcc.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Adapts a DocumentWriteOperation into an XCC Content object. File-backed content is passed to XCC as a File so that
+ * XCC can resend it on a retry without buffering it. XCC has no way to pull content from the sender of an
+ * OutputStreamHandle, so that content is written to a temporary file - in tempDirectory, if set - instead of being
+ * buffered in memory; the file is deleted when the Content is closed.
+ * <p>
+ * Loads of many documents typically only have a few distinct combinations of metadata, so by default, the
+ * ContentCreateOptions built for each distinct combination of quality, format, collections, and permissions is cached
+ * and shared by every document with that combination. XCC does not modify ContentCreateOptions, and the cached
+ * instances must not be modified either; set cacheContentCreateOptions to false if a subclass needs a new instance for
+ * every document.
+ */
 public class DefaultDocumentWriteOperationAdapter implements DocumentWriteOperationAdapter {
 
 	private final static Logger logger = LoggerFactory.getLogger(DefaultDocumentWriteOperationAdapter.class);
 
+	private final static int MAX_CACHED_OPTIONS = 1024;
+
+	private boolean cacheContentCreateOptions = true;
+	private File tempDirectory;
+	private final Map<MetadataKey, ContentCreateOptions> optionsCache = new ConcurrentHashMap<>();
+
 	@Override
 	public Content adapt(DocumentWriteOperation operation) {
 		String uri = operation.getUri();
@@ -35,9 +62,35 @@ public class DefaultDocumentWriteOperationAdapter implements DocumentWriteOperat
 			}
 		} else if (handle instanceof DOMHandle) {
 			return ContentFactory.newContent(uri, ((DOMHandle) handle).get(), options);
+		} else if (handle instanceof OutputStreamHandle) {
+			return adaptOutputStreamHandle(uri, (OutputStreamHandle) handle, options);
 		} else throw new IllegalArgumentException("No support yet for content class: " + handle.getClass().getName());
 	}
 
+	/**
+	 * The sent content is written to a temporary file, which is deleted when the returned Content is closed.
+	 *
+	 * @param uri
+	 * @param handle
+	 * @param options
+	 * @return
+	 */
+	protected Content adaptOutputStreamHandle(String uri, OutputStreamHandle handle, ContentCreateOptions options) {
+		File file = null;
+		try {
+			file = File.createTempFile("ml-content-", ".tmp", tempDirectory);
+			try (OutputStream out = new FileOutputStream(file)) {
+				handle.get().write(out);
+			}
+			return new TempFileContent(ContentFactory.newContent(uri, file, options), file);
+		} catch (IOException | RuntimeException e) {
+			if (file != null && !file.delete()) {
+				logger.warn("Unable to delete temporary file: " + file.getAbsolutePath());
+			}
+			throw new RuntimeException("Unable to write content for URI: " + uri + "; cause: " + e.getMessage(), e);
+		}
+	}
+
 	/**
 	 * TODO Only adapts collections, quality, format, and permissions so far.
 	 *
@@ -45,16 +98,33 @@ public class DefaultDocumentWriteOperationAdapter implements DocumentWriteOperat
 	 * @return
 	 */
 	protected ContentCreateOptions adaptMetadata(DocumentMetadataWriteHandle handle) {
-		ContentCreateOptions options = new ContentCreateOptions();
 		if (handle instanceof DocumentMetadataHandle) {
 			DocumentMetadataHandle metadata = (DocumentMetadataHandle) handle;
-			options.setQuality(metadata.getQuality());
-			options.setCollections(metadata.getCollections().toArray(new String[]{}));
-			adaptPermissions(options, metadata);
-			adaptFormat(options, metadata);
-		} else {
-			logger.warn("Only supports DocumentMetadataHandle; unsupported metadata class: " + handle.getClass().getName());
+			if (!cacheContentCreateOptions) {
+				return buildContentCreateOptions(metadata);
+			}
+			// The lookup key refers to the metadata's own collections and permissions; only a key that's cached is copied
+			MetadataKey key = new MetadataKey(metadata);
+			ContentCreateOptions options = optionsCache.get(key);
+			if (options == null) {
+				options = buildContentCreateOptions(metadata);
+				if (optionsCache.size() >= MAX_CACHED_OPTIONS) {
+					optionsCache.clear();
+				}
+				optionsCache.put(key.copy(), options);
+			}
+			return options;
 		}
+		logger.warn("Only supports DocumentMetadataHandle; unsupported metadata class: " + handle.getClass().getName());
+		return new ContentCreateOptions();
+	}
+
+	protected ContentCreateOptions buildContentCreateOptions(DocumentMetadataHandle metadata) {
+		ContentCreateOptions options = new ContentCreateOptions();
+		options.setQuality(metadata.getQuality());
+		options.setCollections(metadata.getCollections().toArray(new String[]{}));
+		adaptPermissions(options, metadata);
+		adaptFormat(options, metadata);
 		return options;
 	}
 
@@ -111,4 +181,132 @@ public class DefaultDocumentWriteOperationAdapter implements DocumentWriteOperat
 		}
 		options.setPermissions(contentPermissions.toArray(new ContentPermission[]{}));
 	}
+
+	/**
+	 * Content that's backed by a temporary file, which is deleted when the Content is closed.
+	 */
+	private static class TempFileContent implements Content {
+
+		private final Content content;
+		private final File file;
+
+		TempFileContent(Content content, File file) {
+			this.content = content;
+			this.file = file;
+		}
+
+		@Override
+		public String getUri() {
+			return content.getUri();
+		}
+
+		@Override
+		public InputStream openDataStream() throws IOException {
+			return content.openDataStream();
+		}
+
+		@Override
+		public ContentCreateOptions getCreateOptions() {
+			return content.getCreateOptions();
+		}
+
+		@Override
+		public boolean isRewindable() {
+			return content.isRewindable();
+		}
+
+		@Override
+		public void rewind() throws IOException {
+			content.rewind();
+		}
+
+		@Override
+		public long size() {
+			return content.size();
+		}
+
+		@Override
+		public void close() {
+			content.close();
+			if (file.exists() && !file.delete()) {
+				logger.warn("Unable to delete temporary file: " + file.getAbsolutePath());
+			}
+		}
+	}
+
+	/**
+	 * The parts of a DocumentMetadataHandle that are adapted into ContentCreateOptions, compared by value.
+	 */
+	private static class MetadataKey {
+
+		private final int quality;
+		private final Format format;
+		private final Set<String> collections;
+		private final Map<String, Set<DocumentMetadataHandle.Capability>> permissions;
+		private final int hashCode;
+
+		MetadataKey(DocumentMetadataHandle metadata) {
+			this(metadata.getQuality(), metadata.getFormat(), metadata.getCollections(), metadata.getPermissions());
+		}
+
+		private MetadataKey(int quality, Format format, Set<String> collections,
+		                    Map<String, Set<DocumentMetadataHandle.Capability>> permissions) {
+			this.quality = quality;
+			this.format = format;
+			this.collections = collections;
+			this.permissions = permissions;
+			this.hashCode = Objects.hash(quality, format, collections, permissions);
+		}
+
+		MetadataKey copy() {
+			Map<String, Set<DocumentMetadataHandle.Capability>> permissionsCopy = new HashMap<>();
+			for (Map.Entry<String, Set<DocumentMetadataHandle.Capability>> entry : permissions.entrySet()) {
+				Set<DocumentMetadataHandle.Capability> capabilities = entry.getValue();
+				if (capabilities != null) {
+					capabilities = capabilities.isEmpty() ? EnumSet.noneOf(DocumentMetadataHandle.Capability.class) :
+						EnumSet.copyOf(capabilities);
+				}
+				permissionsCopy.put(entry.getKey(), capabilities);
+			}
+			return new MetadataKey(quality, format, new HashSet<>(collections), permissionsCopy);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof MetadataKey)) {
+				return false;
+			}
+			MetadataKey other = (MetadataKey) o;
+			return hashCode == other.hashCode && quality == other.quality && format == other.format
+				&& collections.equals(other.collections) && permissions.equals(other.permissions);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	public boolean isCacheContentCreateOptions() {
+		return cacheContentCreateOptions;
+	}
+
+	public void setCacheContentCreateOptions(boolean cacheContentCreateOptions) {
+		this.cacheContentCreateOptions = cacheContentCreateOptions;
+	}
+
+	public File getTempDirectory() {
+		return tempDirectory;
+	}
+
+	/**
+	 * @param tempDirectory the directory for the temporary files that content sent via an OutputStreamHandle is
+	 *                      written to; defaults to the JVM's temporary directory
+	 */
+	public void setTempDirectory(File tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
 }
@@ -0,0 +1,286 @@
+package com.marklogic.xcc.template;
+
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.RequestOptions;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+
+/**
+ * Pool of XCC Sessions for a single ContentSource, so that a Session - along with its authentication and request
+ * options - can be reused across many requests instead of being created and closed for each one. A Session is only
+ * ever used by one thread at a time; it's borrowed, used, and then released back to the pool.
+ * <p>
+ * Up to maxIdleSessions are kept in the pool; any Session released beyond that is closed. If validateOnBorrow is true,
+ * a pooled Session is checked before it's handed out - a Session that has been closed, or that is older than
+ * maxSessionAgeMillis, is discarded. If a validationQuery is set, it's also run against any Session that has been idle
+ * for longer than validationIdleMillis, and the Session is discarded if the query fails.
+ * <p>
+ * A Session is only pooled again if it's been left as it was created - i.e. it auto-commits, its update mode is AUTO
+ * (or was never set), its default request options are the ones the pool gave it, and it has no user object. Otherwise,
+ * any open transaction is rolled back and the Session is closed, so that the next borrower never runs inside a transaction - or
+ * with options - that were left behind by a previous borrower.
+ * <p>
+ * Call close() once the pool is no longer needed to close every idle Session.
+ */
+public class SessionPool {
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ContentSource contentSource;
+    private final BlockingDeque<PooledSession> idleSessions = new LinkedBlockingDeque<>();
+    private final Map<Session, SessionInfo> sessionInfos = new ConcurrentHashMap<>();
+
+    private RequestOptions requestOptions;
+    private int maxIdleSessions = 16;
+    private boolean validateOnBorrow = true;
+    private long maxSessionAgeMillis = 30 * 60 * 1000;
+    private String validationQuery;
+    private long validationIdleMillis = 30000;
+
+    private volatile boolean closed = false;
+
+    public SessionPool(ContentSource contentSource) {
+        this.contentSource = contentSource;
+    }
+
+    /**
+     * @return a Session from the pool, or a new Session if none are available
+     */
+    public Session borrowSession() {
+        if (closed) {
+            throw new IllegalStateException("SessionPool has been closed");
+        }
+        PooledSession pooled;
+        while ((pooled = idleSessions.pollFirst()) != null) {
+            if (!validateOnBorrow || isValid(pooled)) {
+                return pooled.session;
+            }
+            closeQuietly(pooled.session);
+        }
+        return newSession();
+    }
+
+    /**
+     * Returns a Session to the pool. The Session is closed instead if it's marked as broken, if its state was modified
+     * by the borrower, if the pool is full, or if the pool has been closed.
+     *
+     * @param session
+     * @param broken  true if the Session failed in a way that means it should not be used again
+     */
+    public void releaseSession(Session session, boolean broken) {
+        if (session == null) {
+            return;
+        }
+        if (session.isClosed()) {
+            sessionInfos.remove(session);
+            return;
+        }
+        if (!isUnmodified(session)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Discarding session whose transaction settings, request options, or user object were modified");
+            }
+            rollbackQuietly(session);
+            closeQuietly(session);
+            return;
+        }
+        if (broken || closed || idleSessions.size() >= maxIdleSessions) {
+            closeQuietly(session);
+            return;
+        }
+        idleSessions.offerFirst(new PooledSession(session));
+        if (closed) {
+            // The pool was closed while this Session was being released
+            close();
+        }
+    }
+
+    /**
+     * @param ex
+     * @return true if the given exception indicates that the Session it was thrown by should not be reused
+     */
+    public static boolean isConnectionFailure(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ServerConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes every idle Session; Sessions that are borrowed when this is called are closed when they're released.
+     */
+    public void close() {
+        closed = true;
+        PooledSession pooled;
+        while ((pooled = idleSessions.pollFirst()) != null) {
+            closeQuietly(pooled.session);
+        }
+    }
+
+    protected Session newSession() {
+        Session session = contentSource.newSession();
+        if (requestOptions != null) {
+            session.setDefaultRequestOptions(requestOptions);
+        }
+        sessionInfos.put(session, new SessionInfo(session.getDefaultRequestOptions()));
+        return session;
+    }
+
+    /**
+     * @param session
+     * @return true if the Session is in the same state that the pool created it in, such that it's safe to hand it to
+     * another borrower
+     */
+    protected boolean isUnmodified(Session session) {
+        Session.Update update = session.getUpdate();
+        if (!session.isAutoCommit() || (update != null && update != Session.Update.AUTO)) {
+            return false;
+        }
+        SessionInfo info = sessionInfos.get(session);
+        return info != null && session.getDefaultRequestOptions() == info.requestOptions && session.getUserObject() == null;
+    }
+
+    /**
+     * Rolls back any transaction left open on a Session that doesn't auto-commit.
+     *
+     * @param session
+     */
+    protected void rollbackQuietly(Session session) {
+        if (session.isAutoCommit()) {
+            return;
+        }
+        try {
+            session.rollback();
+        } catch (Exception ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Unable to roll back transaction on discarded session: " + ex.getMessage());
+            }
+        }
+    }
+
+    protected boolean isValid(PooledSession pooled) {
+        if (pooled.session.isClosed()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        SessionInfo info = sessionInfos.get(pooled.session);
+        if (maxSessionAgeMillis > 0 && info != null && now - info.createdMillis > maxSessionAgeMillis) {
+            return false;
+        }
+        if (validationQuery != null && now - pooled.releasedMillis > validationIdleMillis) {
+            try {
+                pooled.session.submitRequest(pooled.session.newAdhocQuery(validationQuery));
+            } catch (Exception ex) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Discarding session that failed validation: " + ex.getMessage());
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected void closeQuietly(Session session) {
+        sessionInfos.remove(session);
+        try {
+            session.close();
+        } catch (Exception ex) {
+            logger.warn("Unable to close session: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Remembers when a Session was created, and the request options it was created with.
+     */
+    protected static class SessionInfo {
+
+        private final long createdMillis = System.currentTimeMillis();
+        private final RequestOptions requestOptions;
+
+        SessionInfo(RequestOptions requestOptions) {
+            this.requestOptions = requestOptions;
+        }
+    }
+
+    /**
+     * Remembers when a Session was released, so that it can be validated if it's been idle too long.
+     */
+    protected static class PooledSession {
+
+        private final Session session;
+        private final long releasedMillis = System.currentTimeMillis();
+
+        PooledSession(Session session) {
+            this.session = session;
+        }
+    }
+
+    public int getIdleSessionCount() {
+        return idleSessions.size();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public ContentSource getContentSource() {
+        return contentSource;
+    }
+
+    public RequestOptions getRequestOptions() {
+        return requestOptions;
+    }
+
+    public void setRequestOptions(RequestOptions requestOptions) {
+        this.requestOptions = requestOptions;
+    }
+
+    public int getMaxIdleSessions() {
+        return maxIdleSessions;
+    }
+
+    public void setMaxIdleSessions(int maxIdleSessions) {
+        this.maxIdleSessions = maxIdleSessions;
+    }
+
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    public void setValidateOnBorrow(boolean validateOnBorrow) {
+        this.validateOnBorrow = validateOnBorrow;
+    }
+
+    public long getMaxSessionAgeMillis() {
+        return maxSessionAgeMillis;
+    }
+
+    public void setMaxSessionAgeMillis(long maxSessionAgeMillis) {
+        this.maxSessionAgeMillis = maxSessionAgeMillis;
+    }
+
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    public void setValidationQuery(String validationQuery) {
+        this.validationQuery = validationQuery;
+    }
+
+    public long getValidationIdleMillis() {
+        return validationIdleMillis;
+    }
+
+    public void setValidationIdleMillis(long validationIdleMillis) {
+        this.validationIdleMillis = validationIdleMillis;
+    }
+}
@@ -13,12 +13,18 @@ import com.marklogic.xcc.exceptions.RequestException;
 /**
  * Spring-style Template class that handles instantiating an XCC Session and then closing it, allowing the Callback
  * implementation to focus on what to do with the Session.
+ * <p>
+ * Call setPooledSessions(true) to borrow Sessions from a SessionPool instead of creating and closing a Session for
+ * every call; call close() when the template is no longer needed so that the pooled Sessions are closed. A Session
+ * whose transaction settings, default request options, or user object is changed by a callback isn't pooled again - see
+ * SessionPool.
  */
 public class XccTemplate {
 
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     private ContentSource contentSource;
+    private volatile SessionPool sessionPool;
 
     public XccTemplate(String uri) {
         try {
@@ -40,16 +46,70 @@ public class XccTemplate {
     }
 
     public <T> T execute(XccCallback<T> callback) {
-        Session session = contentSource.newSession();
+        final SessionPool pool = this.sessionPool;
+        if (pool == null) {
+            Session session = contentSource.newSession();
+            try {
+                return callback.execute(session);
+            } catch (RequestException re) {
+                throw new RuntimeException(re);
+            } finally {
+                session.close();
+            }
+        }
+
+        Session session = pool.borrowSession();
+        boolean broken = false;
         try {
             return callback.execute(session);
         } catch (RequestException re) {
+            broken = SessionPool.isConnectionFailure(re);
             throw new RuntimeException(re);
+        } catch (RuntimeException | Error ex) {
+            broken = true;
+            throw ex;
         } finally {
-            session.close();
+            pool.releaseSession(session, broken);
+        }
+    }
+
+    /**
+     * @param pooledSessions if true, a SessionPool is created for the ContentSource; if false, any existing
+     *                       SessionPool is closed
+     */
+    public synchronized void setPooledSessions(boolean pooledSessions) {
+        if (pooledSessions && sessionPool == null) {
+            sessionPool = new SessionPool(contentSource);
+        } else if (!pooledSessions && sessionPool != null) {
+            sessionPool.close();
+            sessionPool = null;
+        }
+    }
+
+    /**
+     * Closes the SessionPool, if one is in use.
+     */
+    public synchronized void close() {
+        if (sessionPool != null) {
+            sessionPool.close();
+            sessionPool = null;
         }
     }
 
+    public SessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    /**
+     * Use this to configure a SessionPool - e.g. with RequestOptions or a validationQuery - instead of calling
+     * setPooledSessions.
+     *
+     * @param sessionPool
+     */
+    public synchronized void setSessionPool(SessionPool sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
     /**
      * Convenience method for executing any adhoc query.
      *
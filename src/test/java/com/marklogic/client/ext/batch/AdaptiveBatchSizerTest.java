@@ -0,0 +1,50 @@
+package com.marklogic.client.ext.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveBatchSizerTest extends Assert {
+
+	private final static long MILLIS = 1000000;
+
+	@Test
+	public void increaseAndDecrease() {
+		AdaptiveBatchSizer sut = new AdaptiveBatchSizer(100);
+		sut.setAdditiveIncrease(10);
+		sut.setTargetBatchMillis(1000);
+
+		sut.onBatchSucceeded(100, 0, 500 * MILLIS);
+		assertEquals(110, sut.getBatchSize());
+
+		sut.onBatchSucceeded(50, 0, 500 * MILLIS);
+		assertEquals("A batch smaller than the current size says nothing about whether a larger batch would work",
+			110, sut.getBatchSize());
+
+		long start = System.nanoTime();
+		sut.onBatchSucceeded(110, start, start + 2000 * MILLIS);
+		assertEquals("A batch slower than the target should halve the batch size", 55, sut.getBatchSize());
+
+		sut.onBatchFailed(110, start);
+		assertEquals("A batch that started before the last decrease should not cause another decrease",
+			55, sut.getBatchSize());
+
+		sut.onBatchFailed(55, System.nanoTime());
+		assertEquals(27, sut.getBatchSize());
+	}
+
+	@Test
+	public void staysWithinBounds() {
+		AdaptiveBatchSizer sut = new AdaptiveBatchSizer(10);
+		sut.setMinBatchSize(8);
+		sut.setMaxBatchSize(20);
+		sut.setAdditiveIncrease(100);
+
+		sut.onBatchSucceeded(10, 0, 0);
+		assertEquals(20, sut.getBatchSize());
+
+		sut.onBatchFailed(20, System.nanoTime());
+		assertEquals(10, sut.getBatchSize());
+		sut.onBatchFailed(10, System.nanoTime());
+		assertEquals(8, sut.getBatchSize());
+	}
+}
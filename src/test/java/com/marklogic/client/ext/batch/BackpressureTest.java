@@ -0,0 +1,47 @@
+package com.marklogic.client.ext.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BackpressureTest extends Assert {
+
+	@Test
+	public void callerRunsWhenMaxBatchesInFlight() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		LatchedBatchWriter writer = new LatchedBatchWriter(latch);
+		writer.setThreadCount(2);
+		writer.setMaxInFlightBatches(1);
+		writer.setBackpressurePolicy(BatchWriterSupport.BackpressurePolicy.CALLER_RUNS);
+		writer.initialize();
+
+		writer.write(Arrays.asList(new SimpleDocumentWriteOperation("/1.txt", "1")));
+		assertTrue(writer.started.await(5, TimeUnit.SECONDS));
+		assertEquals(1, writer.getInFlightLimiter().getBatchesInFlight());
+
+		// The first batch can't finish yet, so this one should be written on this thread
+		writer.write(Arrays.asList(new SimpleDocumentWriteOperation("/2.txt", "2")));
+		assertEquals(Thread.currentThread().getName(), writer.lastThreadName);
+
+		latch.countDown();
+		writer.waitForCompletion();
+		assertEquals(0, writer.getInFlightLimiter().getBatchesInFlight());
+	}
+
+	@Test
+	public void blockUntilBytesAreAvailable() throws Exception {
+		InFlightLimiter limiter = new InFlightLimiter(0, 10);
+		assertTrue("A batch over the limit is allowed when nothing else is in flight", limiter.tryAcquire(20));
+		assertFalse(limiter.tryAcquire(1));
+
+		Thread releaser = new Thread(() -> limiter.release(20));
+		releaser.start();
+		limiter.acquire(5);
+		assertEquals(5, limiter.getBytesInFlight());
+		assertTrue(limiter.tryAcquire(5));
+		assertFalse(limiter.tryAcquire(1));
+	}
+}
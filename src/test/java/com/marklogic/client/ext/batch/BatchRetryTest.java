@@ -0,0 +1,100 @@
+package com.marklogic.client.ext.batch;
+
+import com.marklogic.client.FailedRequestException;
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.impl.FailedRequest;
+import com.marklogic.client.impl.DocumentWriteOperationImpl;
+import com.marklogic.client.io.InputStreamHandle;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchRetryTest extends Assert {
+
+	@Test
+	public void retryTransientFailure() {
+		FailingBatchWriter writer = new FailingBatchWriter();
+		writer.transientFailures = 2;
+		writer.write(buildDocuments(10));
+
+		assertEquals(3, writer.attempts);
+		assertEquals(10, writer.written.size());
+	}
+
+	@Test
+	public void bisectToIsolateBadDocument() {
+		FailingBatchWriter writer = new FailingBatchWriter();
+		writer.badUri = "/7.txt";
+		List<List<? extends DocumentWriteOperation>> failedBatches = new ArrayList<>();
+		writer.setWriteListener((ex, items) -> failedBatches.add(items));
+
+		writer.write(buildDocuments(10));
+
+		assertEquals(9, writer.written.size());
+		assertEquals(1, failedBatches.size());
+		assertEquals(1, failedBatches.get(0).size());
+		assertEquals("/7.txt", failedBatches.get(0).get(0).getUri());
+	}
+
+	@Test
+	public void unauthorizedBatchIsNotSplit() {
+		FailedRequest failedRequest = new FailedRequest();
+		failedRequest.setStatusCode(401);
+		failedRequest.setMessageString("Unauthorized");
+		FailingBatchWriter writer = new FailingBatchWriter();
+		writer.batchFailure = new FailedRequestException("Unauthorized", failedRequest);
+		List<List<? extends DocumentWriteOperation>> failedBatches = new ArrayList<>();
+		writer.setWriteListener((ex, items) -> failedBatches.add(items));
+
+		try {
+			writer.write(buildDocuments(10));
+			fail("The failure should have been thrown, as no documents were written");
+		} catch (FailedRequestException ex) {
+			assertEquals(401, ex.getFailedRequest().getStatusCode());
+		}
+		assertEquals("A failure that affects the whole batch should not cause it to be split", 1, writer.attempts);
+		assertTrue(failedBatches.isEmpty());
+	}
+
+	@Test
+	public void wholeBatchFailureIsRethrown() {
+		FailingBatchWriter writer = new FailingBatchWriter();
+		writer.getRetryPolicy().setBisectOnFailure(false);
+		writer.badUri = "/1.txt";
+		try {
+			writer.write(buildDocuments(3));
+			fail("The failure should have been thrown, as no documents were written");
+		} catch (RuntimeException ex) {
+			assertEquals("Bad document: /1.txt", ex.getMessage());
+		}
+	}
+
+	@Test
+	public void streamedContentIsNotResent() {
+		FailingBatchWriter writer = new FailingBatchWriter();
+		writer.transientFailures = 1;
+		List<DocumentWriteOperation> docs = buildDocuments(2);
+		docs.add(new DocumentWriteOperationImpl(DocumentWriteOperation.OperationType.DOCUMENT_WRITE, "/stream.txt",
+			null, new InputStreamHandle(new ByteArrayInputStream("stream".getBytes()))));
+
+		try {
+			writer.write(docs);
+			fail("The failure should have been thrown, as the stream can't be read again");
+		} catch (RuntimeException ex) {
+			assertEquals("Unable to write", ex.getMessage());
+		}
+		assertEquals("The batch should not have been retried", 1, writer.attempts);
+		assertTrue(writer.written.isEmpty());
+	}
+
+	private List<DocumentWriteOperation> buildDocuments(int count) {
+		List<DocumentWriteOperation> list = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			list.add(new SimpleDocumentWriteOperation("/" + i + ".txt", "" + i));
+		}
+		return list;
+	}
+}
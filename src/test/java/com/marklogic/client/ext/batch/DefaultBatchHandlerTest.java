@@ -0,0 +1,84 @@
+package com.marklogic.client.ext.batch;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.document.DocumentWriteSet;
+import com.marklogic.client.impl.DocumentWriteSetImpl;
+import com.marklogic.client.io.DocumentMetadataHandle;
+import com.marklogic.client.io.marker.DocumentMetadataWriteHandle;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.marklogic.client.document.DocumentWriteOperation.OperationType.DOCUMENT_WRITE;
+import static com.marklogic.client.document.DocumentWriteOperation.OperationType.METADATA_DEFAULT;
+
+public class DefaultBatchHandlerTest extends Assert {
+
+	private DefaultBatchHandler handler = new DefaultBatchHandler();
+
+	@Test
+	public void runsOfEqualMetadataShareDefault() {
+		List<DocumentWriteOperation> items = Arrays.asList(
+			new SimpleDocumentWriteOperation("/1.txt", "1", "red"),
+			new SimpleDocumentWriteOperation("/2.txt", "2", "red"),
+			new SimpleDocumentWriteOperation("/3.txt", "3", "red"),
+			new SimpleDocumentWriteOperation("/4.txt", "4", "blue"),
+			new SimpleDocumentWriteOperation("/5.txt", "5", "red").addPermissions("rest-reader", DocumentMetadataHandle.Capability.READ),
+			new SimpleDocumentWriteOperation("/6.txt", "6", "red").addPermissions("rest-reader", DocumentMetadataHandle.Capability.READ)
+		);
+
+		List<DocumentWriteOperation> ops = addToWriteSet(items);
+		assertEquals(8, ops.size());
+		assertEquals(METADATA_DEFAULT, ops.get(0).getOperationType());
+		assertNull(ops.get(1).getMetadata());
+		assertNull(ops.get(3).getMetadata());
+		assertEquals("A single document keeps its own metadata", "/4.txt", ops.get(4).getUri());
+		assertNotNull(ops.get(4).getMetadata());
+		assertEquals(METADATA_DEFAULT, ops.get(5).getOperationType());
+		assertEquals("/6.txt", ops.get(7).getUri());
+		assertNull(ops.get(7).getMetadata());
+	}
+
+	@Test
+	public void documentWithoutMetadataPreventsEarlierDefaults() {
+		List<DocumentWriteOperation> items = new ArrayList<>();
+		items.add(new SimpleDocumentWriteOperation("/1.txt", "1", "red"));
+		items.add(new SimpleDocumentWriteOperation("/2.txt", "2", "red"));
+		items.add(new SimpleDocumentWriteOperation("/3.txt", "3") {
+			@Override
+			public DocumentMetadataWriteHandle getMetadata() {
+				return null;
+			}
+		});
+		items.add(new SimpleDocumentWriteOperation("/4.txt", "4", "red"));
+		items.add(new SimpleDocumentWriteOperation("/5.txt", "5", "red"));
+
+		List<DocumentWriteOperation> ops = addToWriteSet(items);
+		assertEquals(6, ops.size());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(DOCUMENT_WRITE, ops.get(i).getOperationType());
+		}
+		assertNotNull(ops.get(0).getMetadata());
+		assertEquals(METADATA_DEFAULT, ops.get(3).getOperationType());
+	}
+
+	@Test
+	public void shareDefaultMetadataDisabled() {
+		handler.setShareDefaultMetadata(false);
+		List<DocumentWriteOperation> ops = addToWriteSet(Arrays.asList(
+			new SimpleDocumentWriteOperation("/1.txt", "1", "red"),
+			new SimpleDocumentWriteOperation("/2.txt", "2", "red")
+		));
+		assertEquals(2, ops.size());
+		assertNotNull(ops.get(0).getMetadata());
+	}
+
+	private List<DocumentWriteOperation> addToWriteSet(List<DocumentWriteOperation> items) {
+		DocumentWriteSet set = new DocumentWriteSetImpl();
+		handler.addToWriteSet(set, items);
+		return new ArrayList<>(set);
+	}
+}
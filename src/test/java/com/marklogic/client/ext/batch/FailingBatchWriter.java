@@ -0,0 +1,51 @@
+package com.marklogic.client.ext.batch;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the URIs it "writes", failing with a transient error transientFailures times, failing every attempt with
+ * batchFailure if it's set, and failing any batch that contains badUri with a document-level error.
+ */
+class FailingBatchWriter extends BatchWriterSupport {
+
+	int transientFailures;
+	String badUri;
+	RuntimeException batchFailure;
+	int attempts;
+	List<String> written = new ArrayList<>();
+
+	FailingBatchWriter() {
+		BatchRetryPolicy policy = new BatchRetryPolicy();
+		policy.setInitialBackoffMillis(1);
+		setRetryPolicy(policy);
+		setThreadCount(1);
+		initialize();
+	}
+
+	@Override
+	public void write(List<? extends DocumentWriteOperation> items) {
+		executeRunnable(buildRetryingRunnable(items, documents -> () -> {
+			attempts++;
+			if (transientFailures > 0) {
+				transientFailures--;
+				throw new RuntimeException("Unable to write", new SocketException("Connection reset"));
+			}
+			if (batchFailure != null) {
+				throw batchFailure;
+			}
+			for (DocumentWriteOperation op : documents) {
+				if (op.getUri().equals(badUri)) {
+					throw new RuntimeException("Bad document: " + badUri,
+						new RuntimeException("XDMP-DOCROOTTEXT: Invalid root text"));
+				}
+			}
+			for (DocumentWriteOperation op : documents) {
+				written.add(op.getUri());
+			}
+		}), items);
+	}
+}
@@ -0,0 +1,67 @@
+package com.marklogic.client.ext.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.SocketException;
+import java.util.Arrays;
+
+public class HostSelectorTest extends Assert {
+
+	@Test
+	public void roundRobin() {
+		RoundRobinHostSelector<String> sut = new RoundRobinHostSelector<>(Arrays.asList("a", "b", "c"));
+		assertEquals("a", sut.select());
+		assertEquals("b", sut.select());
+		assertEquals("c", sut.select());
+		assertEquals("a", sut.select());
+	}
+
+	@Test
+	public void leastOutstanding() {
+		LeastOutstandingHostSelector<String> sut = new LeastOutstandingHostSelector<>(Arrays.asList("a", "b"));
+		sut.onRequestStarted("a");
+		sut.onRequestStarted("a");
+		sut.onRequestStarted("b");
+		assertEquals("b", sut.select());
+		assertEquals("b", sut.select());
+
+		sut.onRequestFinished("a", 1000, null);
+		sut.onRequestFinished("a", 1000, null);
+		sut.onRequestFinished("b", 5000, null);
+		assertEquals("With no outstanding requests, the host with the lower latency should win", "a", sut.select());
+	}
+
+	@Test
+	public void ejectAndRestore() throws Exception {
+		RoundRobinHostSelector<String> sut = new RoundRobinHostSelector<>(Arrays.asList("a", "b"));
+		sut.setEjectionThreshold(2);
+		sut.setEjectionMillis(50);
+		final boolean[] healthy = new boolean[]{false};
+		sut.setHealthCheck(host -> healthy[0]);
+
+		sut.onRequestFinished("a", 0, new RuntimeException("Bad document"));
+		sut.onRequestFinished("a", 0, new RuntimeException("Bad document"));
+		assertFalse("Failures that aren't the host's fault should not eject it", sut.isEjected("a"));
+
+		SocketException connectionReset = new SocketException("Connection reset");
+		sut.onRequestFinished("a", 0, connectionReset);
+		sut.onRequestFinished("a", 0, connectionReset);
+		assertTrue(sut.isEjected("a"));
+		for (int i = 0; i < 4; i++) {
+			assertEquals("b", sut.select());
+		}
+
+		Thread.sleep(60);
+		assertEquals("a should still be ejected since it failed its health check", "b", sut.select());
+		assertTrue(sut.isEjected("a"));
+
+		healthy[0] = true;
+		Thread.sleep(60);
+		sut.select();
+		assertFalse(sut.isEjected("a"));
+
+		sut.onRequestFinished("a", 0, connectionReset);
+		assertTrue("A restored host should be ejected again after a single failure", sut.isEjected("a"));
+	}
+}
@@ -0,0 +1,35 @@
+package com.marklogic.client.ext.batch;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Writes nothing; a batch whose first URI is "/1.txt" doesn't finish until the latch is counted down.
+ */
+class LatchedBatchWriter extends BatchWriterSupport {
+
+	private final CountDownLatch latch;
+	final CountDownLatch started = new CountDownLatch(1);
+	volatile String lastThreadName;
+
+	LatchedBatchWriter(CountDownLatch latch) {
+		this.latch = latch;
+	}
+
+	@Override
+	public void write(List<? extends DocumentWriteOperation> items) {
+		executeRunnable(() -> {
+			lastThreadName = Thread.currentThread().getName();
+			started.countDown();
+			if (items.get(0).getUri().equals("/1.txt")) {
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, items);
+	}
+}
@@ -0,0 +1,86 @@
+package com.marklogic.client.ext.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class WaitForCompletionTest extends Assert {
+
+	@Test
+	public void taskExecutorIsReusedAcrossJobs() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		LatchedBatchWriter writer = new LatchedBatchWriter(latch);
+		writer.setThreadCount(2);
+		writer.initialize();
+		TaskExecutor taskExecutor = writer.getTaskExecutor();
+
+		writer.write(Arrays.asList(new SimpleDocumentWriteOperation("/1.txt", "1")));
+		assertTrue(writer.started.await(5, TimeUnit.SECONDS));
+
+		Thread waiter = new Thread(writer::waitForCompletion);
+		waiter.start();
+		waiter.join(200);
+		assertTrue("waitForCompletion should block until the batch finishes", waiter.isAlive());
+
+		latch.countDown();
+		waiter.join(5000);
+		assertFalse(waiter.isAlive());
+
+		writer.initialize();
+		assertSame("The thread pool should be kept for the next job", taskExecutor, writer.getTaskExecutor());
+		writer.write(Arrays.asList(new SimpleDocumentWriteOperation("/2.txt", "2")));
+		writer.waitForCompletion();
+		assertTrue(writer.lastThreadName != null && !writer.lastThreadName.equals(Thread.currentThread().getName()));
+	}
+
+	@Test
+	public void shutdownOnCompletion() {
+		LatchedBatchWriter writer = new LatchedBatchWriter(new CountDownLatch(0));
+		writer.setThreadCount(2);
+		writer.setShutdownTaskExecutorOnCompletion(true);
+		writer.initialize();
+
+		writer.write(Arrays.asList(new SimpleDocumentWriteOperation("/1.txt", "1")));
+		writer.waitForCompletion();
+		assertNull(writer.getTaskExecutor());
+	}
+
+	@Test
+	public void injectedTaskExecutorIsShutDown() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(2);
+		taskExecutor.afterPropertiesSet();
+
+		LatchedBatchWriter writer = new LatchedBatchWriter(new CountDownLatch(0));
+		writer.setTaskExecutor(taskExecutor);
+		writer.initialize();
+		writer.write(Arrays.asList(new SimpleDocumentWriteOperation("/1.txt", "1")));
+		writer.waitForCompletion();
+
+		assertTrue(taskExecutor.getThreadPoolExecutor().isShutdown());
+		assertNull(writer.getTaskExecutor());
+	}
+
+	@Test
+	public void injectedTaskExecutorIsKeptWhenShutdownIsDisabled() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(2);
+		taskExecutor.afterPropertiesSet();
+
+		LatchedBatchWriter writer = new LatchedBatchWriter(new CountDownLatch(0));
+		writer.setTaskExecutor(taskExecutor);
+		writer.setShutdownTaskExecutorOnCompletion(false);
+		writer.initialize();
+		writer.write(Arrays.asList(new SimpleDocumentWriteOperation("/1.txt", "1")));
+		writer.waitForCompletion();
+
+		assertFalse(taskExecutor.getThreadPoolExecutor().isShutdown());
+		assertSame(taskExecutor, writer.getTaskExecutor());
+		taskExecutor.shutdown();
+	}
+}
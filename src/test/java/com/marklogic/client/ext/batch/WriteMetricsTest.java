@@ -0,0 +1,89 @@
+package com.marklogic.client.ext.batch;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WriteMetricsTest extends Assert {
+
+	@Test
+	public void collectMetricsFromBatchWriter() {
+		WriteMetrics metrics = new WriteMetrics();
+		FailingBatchWriter writer = new FailingBatchWriter();
+		writer.setMetricsListener(metrics);
+		writer.transientFailures = 1;
+		writer.write(buildDocuments(4));
+		writer.getRetryPolicy().setBisectOnFailure(false);
+		writer.badUri = "/0.txt";
+		try {
+			writer.write(buildDocuments(2));
+			fail("The failure should have been thrown, as no documents were written");
+		} catch (RuntimeException ex) {
+			// Expected
+		}
+
+		WriteMetricsSnapshot snapshot = metrics.snapshot();
+		assertEquals(2, snapshot.getBatchesSubmitted());
+		assertEquals(1, snapshot.getBatchesSucceeded());
+		assertEquals(1, snapshot.getBatchesFailed());
+		assertEquals(4, snapshot.getDocumentsWritten());
+		assertEquals(2, snapshot.getDocumentsFailed());
+		assertEquals("4 docs of 1 byte each", 4, snapshot.getBytesWritten());
+		assertEquals(1, snapshot.getRetries());
+		assertEquals(0, snapshot.getBatchesInFlight());
+		assertEquals(0, snapshot.getBatchesQueued());
+		assertTrue(snapshot.getMaxLatencyMillis() >= snapshot.getP50LatencyMillis());
+		assertNotNull(snapshot.toString());
+	}
+
+	@Test
+	public void hostMetrics() {
+		WriteMetrics metrics = new WriteMetrics();
+		metrics.onRequestFinished("host1:8000", 10, 5000000, null);
+		metrics.onRequestFinished("host1:8000", 10, 7000000, new RuntimeException());
+		metrics.onRequestFinished("host2:8000", 10, 1000000, null);
+
+		WriteMetricsSnapshot.HostSnapshot host1 = metrics.snapshot().getHosts().get("host1:8000");
+		assertEquals(2, host1.getRequests());
+		assertEquals(1, host1.getFailures());
+		assertEquals(1, metrics.snapshot().getHosts().get("host2:8000").getRequests());
+	}
+
+	@Test
+	public void histogramPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.recordNanos(i * 1000000L);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(100.0, histogram.getMaxMillis(), 0.001);
+		assertEquals(50.5, histogram.getMeanMillis(), 0.001);
+
+		// Buckets are within 12.5% of the recorded values
+		assertEquals(50, histogram.getPercentileMillis(50), 50 * 0.125);
+		assertEquals(99, histogram.getPercentileMillis(99), 99 * 0.125);
+		assertTrue(histogram.getPercentileMillis(100) <= 100);
+	}
+
+	@Test
+	public void bucketBoundaries() {
+		for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE}) {
+			int index = LatencyHistogram.bucketIndex(value);
+			assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+			if (index > 0) {
+				assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value);
+			}
+		}
+	}
+
+	private List<DocumentWriteOperation> buildDocuments(int count) {
+		List<DocumentWriteOperation> list = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			list.add(new SimpleDocumentWriteOperation("/" + i + ".txt", "" + i));
+		}
+		return list;
+	}
+}
@@ -0,0 +1,60 @@
+package com.marklogic.client.ext.file;
+
+import com.marklogic.client.io.Format;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.File;
+
+public class DefaultDocumentFormatGetterTest extends Assert {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private DefaultDocumentFormatGetter sut = new DefaultDocumentFormatGetter();
+
+	@Test
+	public void extensions() {
+		assertEquals(Format.XML, getFormat("doc.xml"));
+		assertEquals(Format.XML, getFormat("DOC.XML"));
+		assertEquals(Format.JSON, getFormat("template.tdej"));
+		assertEquals(Format.BINARY, getFormat("archive.tar.gz"));
+		assertEquals(Format.TEXT, getFormat("module.xqy"));
+		assertEquals("Only whole extensions should be matched", Format.TEXT, getFormat("file.notxml"));
+		assertEquals(Format.TEXT, getFormat("noextension"));
+	}
+
+	@Test
+	public void multiPartAndModifiedExtensions() {
+		assertEquals(Format.BINARY, getFormat("data.json.gz"));
+
+		sut.getJsonExtensions().add(".json.gz");
+		assertEquals("The longest extension should win", Format.JSON, getFormat("data.json.gz"));
+
+		sut.getBinaryExtensions().add("test1");
+		assertEquals(Format.BINARY, getFormat("file.test1"));
+	}
+
+	@Test
+	public void sniffExtensionlessFiles() throws Exception {
+		sut.setSniffExtensionlessFiles(true);
+		assertEquals(Format.XML, getFormat("a", "  <hello/>".getBytes()));
+		assertEquals(Format.JSON, getFormat("b", "{\"hello\":\"world\"}".getBytes()));
+		assertEquals(Format.TEXT, getFormat("c", "hello world".getBytes()));
+		assertEquals(Format.BINARY, getFormat("d", new byte[]{(byte) 0x1F, (byte) 0x8B, 8, 0}));
+	}
+
+	private Format getFormat(String filename) {
+		return sut.getFormat(new FileSystemResource(new File(tempFolder.getRoot(), filename)));
+	}
+
+	private Format getFormat(String filename, byte[] content) throws Exception {
+		File file = tempFolder.newFile(filename);
+		FileCopyUtils.copy(content, file);
+		return sut.getFormat(new FileSystemResource(file));
+	}
+}
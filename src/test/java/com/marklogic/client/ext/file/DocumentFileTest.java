@@ -0,0 +1,85 @@
+package com.marklogic.client.ext.file;
+
+import com.marklogic.client.io.FileHandle;
+import com.marklogic.client.io.Format;
+import com.marklogic.client.io.InputStreamHandle;
+import com.marklogic.client.io.OutputStreamHandle;
+import com.marklogic.client.io.StringHandle;
+import com.marklogic.client.io.marker.AbstractWriteHandle;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.UrlResource;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class DocumentFileTest extends Assert {
+
+	private static final String CONTENT = "<hello>world</hello>";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void fileSystemResource() throws Exception {
+		File file = tempFolder.newFile("hello.xml");
+		Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+
+		DocumentFile sut = new DocumentFile("/hello.xml", file);
+		sut.setFormat(Format.XML);
+		assertEquals(file, sut.getFileForContent());
+		assertTrue(sut.getContent() instanceof FileHandle);
+		assertEquals(file, ((FileHandle) sut.getContent()).get());
+		assertEquals(Format.XML, ((FileHandle) sut.getContent()).getFormat());
+		assertEquals(CONTENT.length(), sut.getContentLength());
+
+		sut.setFileSize(1000);
+		assertEquals("The fileSize should be used instead of the length of the file", 1000, sut.getContentLength());
+	}
+
+	@Test
+	public void resourceInJarFile() throws Exception {
+		File jarFile = tempFolder.newFile("docs.jar");
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+			out.putNextEntry(new ZipEntry("hello.xml"));
+			out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+		}
+
+		DocumentFile sut = new DocumentFile("/hello.xml", new UrlResource("jar:" + jarFile.toURI() + "!/hello.xml"));
+		assertNull("A resource in a jar file isn't backed by a File", sut.getFileForContent());
+		AbstractWriteHandle content = sut.getContent();
+		assertTrue(content instanceof InputStreamHandle);
+		try (InputStream in = ((InputStreamHandle) content).get()) {
+			assertEquals(CONTENT, new String(FileCopyUtils.copyToByteArray(in), StandardCharsets.UTF_8));
+		}
+		assertEquals(CONTENT.length(), sut.getContentLength());
+	}
+
+	@Test
+	public void modifiedContent() throws Exception {
+		File file = tempFolder.newFile("hello.xml");
+		Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+
+		DocumentFile sut = new DocumentFile("/hello.xml", file);
+		sut.setModifiedContentSender(out -> out.write("<sent/>".getBytes(StandardCharsets.UTF_8)));
+		assertTrue(sut.getContent() instanceof OutputStreamHandle);
+		assertTrue(((OutputStreamHandle) sut.getContent()).isResendable());
+		assertEquals("The length isn't known until the sender writes the content, so the file's length is used",
+			CONTENT.length(), sut.getContentLength());
+
+		sut.setModifiedContent("<modified/>");
+		assertTrue("modifiedContent should take precedence over modifiedContentSender",
+			sut.getContent() instanceof StringHandle);
+		assertEquals("<modified/>", ((StringHandle) sut.getContent()).get());
+		assertEquals("<modified/>".length(), sut.getContentLength());
+	}
+}
@@ -8,6 +8,7 @@ import org.junit.Test;
 
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class DocumentFinderTest extends Assert {
@@ -34,4 +35,40 @@ public class DocumentFinderTest extends Assert {
 		assertTrue(uris.contains("/tde/ruleset.txt"));
 		assertTrue(uris.contains("/not-tde/ruleset.txt"));
 	}
+
+	@Test
+	public void parallelReaderSortedByUri() {
+		ParallelDocumentFileReader reader = new ParallelDocumentFileReader(4);
+		reader.setSortByUri(true);
+		reader.addFileFilter(file -> !file.getName().equals("not-tde"));
+
+		String path = Paths.get("src", "test", "resources", "schemas").toString();
+		List<DocumentFile> list = reader.readDocumentFiles(path);
+
+		List<String> uris = new ArrayList<>();
+		for (DocumentFile file : list) {
+			uris.add(file.getUri());
+		}
+		assertEquals("The not-tde directory should have been skipped, and the URIs should be sorted",
+			Arrays.asList("/.do-not-load", "/child/child.tdej", "/child/grandchild/grandchild.tdex", "/parent.tdex",
+				"/tde/ruleset.txt"), uris);
+	}
+
+	@Test
+	public void collectionsAndPermissionsFromDirectoryFiles() {
+		String path = Paths.get("src", "test", "resources", "rulesets", "collection-test").toString();
+		for (DefaultDocumentFileReader reader : Arrays.asList(new DefaultDocumentFileReader(), new ParallelDocumentFileReader(2))) {
+			List<DocumentFile> list = reader.readDocumentFiles(path);
+			assertEquals("The properties files themselves should not be loaded", 2, list.size());
+			for (DocumentFile file : list) {
+				if (file.getUri().equals("/ruleset1.xml")) {
+					assertTrue(file.getDocumentMetadata().getCollections().contains("ruleset-abc"));
+					assertTrue(file.getDocumentMetadata().getPermissions().containsKey("rest-admin"));
+				} else {
+					assertEquals(2, file.getDocumentMetadata().getCollections().size());
+					assertTrue(file.getDocumentMetadata().getPermissions().isEmpty());
+				}
+			}
+		}
+	}
 }
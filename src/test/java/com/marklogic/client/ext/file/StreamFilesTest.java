@@ -0,0 +1,137 @@
+package com.marklogic.client.ext.file;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.ext.batch.BatchWriter;
+import com.marklogic.client.ext.batch.RestBatchWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.FileCopyUtils;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StreamFilesTest extends Assert {
+
+	private TestBatchWriter batchWriter = new TestBatchWriter();
+	private GenericFileLoader loader = new GenericFileLoader(batchWriter);
+	private String path = Paths.get("src", "test", "resources", "schemas").toString();
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void streamInBatches() {
+		loader.setStreaming(true);
+		loader.setBatchSize(4);
+		loader.setStreamingQueueCapacity(1);
+		loader.setRetainDocumentFiles(true);
+
+		List<DocumentFile> files = loader.loadFiles(path);
+		assertEquals(6, files.size());
+		assertEquals(2, batchWriter.batches.size());
+		assertEquals(4, batchWriter.batches.get(0).size());
+		assertEquals(2, batchWriter.batches.get(1).size());
+		assertTrue(batchWriter.waitedForCompletion);
+	}
+
+	@Test
+	public void streamWithoutRetainingFiles() {
+		loader.setStreaming(true);
+
+		List<DocumentFile> files = loader.loadFiles(path);
+		assertTrue(files.isEmpty());
+		assertEquals("The default streaming batch size should put all 6 files in one batch", 1, batchWriter.batches.size());
+		assertEquals(6, batchWriter.batches.get(0).size());
+	}
+
+	@Test
+	public void streamingLimitsBatchesInFlight() {
+		List<Integer> limitsWhileStreaming = new ArrayList<>();
+		RestBatchWriter writer = new RestBatchWriter(new ArrayList<>()) {
+			@Override
+			public void initialize() {
+				limitsWhileStreaming.add(getMaxInFlightBatches());
+				super.initialize();
+			}
+		};
+		writer.setThreadCount(1);
+		GenericFileLoader streamingLoader = new GenericFileLoader(writer);
+		streamingLoader.setStreaming(true);
+		streamingLoader.loadFiles(tempFolder.getRoot().getAbsolutePath());
+		assertEquals(GenericFileLoader.DEFAULT_STREAMING_MAX_IN_FLIGHT_BATCHES, (int) limitsWhileStreaming.get(0));
+		assertEquals("The limit should only apply while streaming", 0, writer.getMaxInFlightBatches());
+
+		writer.setMaxInFlightBytes(1024);
+		streamingLoader.loadFiles(tempFolder.getRoot().getAbsolutePath());
+		assertEquals("A limit that's already set should be kept", 0, (int) limitsWhileStreaming.get(1));
+		assertEquals(0, writer.getMaxInFlightBatches());
+	}
+
+	@Test
+	public void batchSizeOfOneWithoutStreaming() {
+		loader.setBatchSize(1);
+
+		List<DocumentFile> files = loader.loadFiles(path);
+		assertEquals(6, files.size());
+		assertEquals(6, batchWriter.batches.size());
+	}
+
+	@Test
+	public void maxBytesPerBatch() throws Exception {
+		for (String name : new String[]{"a.txt", "b.txt", "c.txt", "d.txt"}) {
+			FileCopyUtils.copy("0123456789".getBytes(), tempFolder.newFile(name));
+		}
+		FileCopyUtils.copy(new byte[100], tempFolder.newFile("e.bin"));
+		String tempPath = tempFolder.getRoot().getAbsolutePath();
+
+		ParallelDocumentFileReader reader = new ParallelDocumentFileReader(2);
+		reader.setSortByUri(true);
+		loader.setDocumentFileReader(reader);
+		loader.setMaxBytesPerBatch(25L);
+		List<DocumentFile> files = loader.loadFiles(tempPath);
+		assertEquals(5, files.size());
+		for (DocumentFile file : files) {
+			assertEquals(file.getFile().length(), file.getFileSize());
+		}
+		assertBatchSizes(2, 2, 1);
+
+		batchWriter.batches.clear();
+		loader.setStreaming(true);
+		loader.setBatchSize(3);
+		loader.loadFiles(tempPath);
+		assertBatchSizes(2, 2, 1);
+	}
+
+	/**
+	 * Files are sorted by URI, so the large file comes last and should be written in a batch of its own.
+	 */
+	private void assertBatchSizes(int... sizes) {
+		assertEquals(sizes.length, batchWriter.batches.size());
+		for (int i = 0; i < sizes.length; i++) {
+			assertEquals(sizes[i], batchWriter.batches.get(i).size());
+		}
+	}
+}
+
+class TestBatchWriter implements BatchWriter {
+
+	List<List<? extends DocumentWriteOperation>> batches = new ArrayList<>();
+	boolean waitedForCompletion;
+
+	@Override
+	public void initialize() {
+	}
+
+	@Override
+	public void write(List<? extends DocumentWriteOperation> items) {
+		batches.add(new ArrayList<>(items));
+	}
+
+	@Override
+	public void waitForCompletion() {
+		waitedForCompletion = true;
+	}
+}
@@ -0,0 +1,61 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.File;
+import java.util.Date;
+
+public class ContentHashModuleManagerTest extends Assert {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void test() throws Exception {
+		File propertiesFile = new File(tempFolder.getRoot(), "checksums.properties");
+		ContentHashModuleManager sut = new ContentHashModuleManager(propertiesFile.getAbsolutePath());
+		sut.initialize();
+
+		File module = tempFolder.newFile("module.xqy");
+		FileCopyUtils.copy("xquery version '1.0-ml';".getBytes(), module);
+		assertTrue("A file that's never been loaded should be considered modified", sut.hasFileBeenModifiedSinceLastLoaded(module));
+
+		sut.saveLastLoadedTimestamp(module, new Date());
+		assertFalse(sut.hasFileBeenModifiedSinceLastLoaded(module));
+
+		module.setLastModified(module.lastModified() + 10000);
+		assertFalse("Changing only the timestamp should not cause the file to be considered modified",
+			sut.hasFileBeenModifiedSinceLastLoaded(module));
+
+		FileCopyUtils.copy("xquery version '3.0';".getBytes(), module);
+		assertTrue(sut.hasFileBeenModifiedSinceLastLoaded(module));
+
+		sut.saveLastLoadedTimestamp(module, new Date());
+		sut = new ContentHashModuleManager(propertiesFile.getAbsolutePath());
+		sut.initialize();
+		assertFalse("The checksum should have been persisted", sut.hasFileBeenModifiedSinceLastLoaded(module));
+	}
+
+	@Test
+	public void editBetweenCheckAndSave() throws Exception {
+		File propertiesFile = new File(tempFolder.getRoot(), "checksums.properties");
+		ContentHashModuleManager sut = new ContentHashModuleManager(propertiesFile.getAbsolutePath());
+		sut.initialize();
+
+		File module = tempFolder.newFile("module.xqy");
+		FileCopyUtils.copy("xquery version '1.0-ml';".getBytes(), module);
+		assertTrue(sut.hasFileBeenModifiedSinceLastLoaded(module));
+
+		// Edited after being checked, but before being saved
+		FileCopyUtils.copy("xquery version '3.0-ml';".getBytes(), module);
+		module.setLastModified(module.lastModified() + 10000);
+		sut.saveLastLoadedTimestamp(module, new Date());
+
+		assertTrue("The edit should still be detected, as the saved values are the ones that were checked",
+			sut.hasFileBeenModifiedSinceLastLoaded(module));
+	}
+}
@@ -0,0 +1,117 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.ext.stub.StubMarkLogicServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Set;
+
+/**
+ * Loads the REST modules in sample-base-dir against a stand-in for MarkLogic, so that no server is needed.
+ */
+public class ModuleTasksTest extends Assert {
+
+	private final static String BASE_DIR = Paths.get("src", "test", "resources", "sample-base-dir").toString();
+
+	private StubMarkLogicServer server;
+	private DatabaseClient client;
+	private DefaultModulesLoader loader;
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Before
+	public void setup() {
+		server = new StubMarkLogicServer().start();
+		client = server.newClient();
+		loader = new DefaultModulesLoader(new AssetFileLoader(client));
+		loader.setModulesManager(null);
+		loader.setTaskThreadCount(4);
+	}
+
+	@After
+	public void teardown() {
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void eachModuleIsLoadedByItsOwnTask() {
+		Set<Resource> loaded = loader.loadModules(BASE_DIR, new DefaultModulesFinder(), client);
+
+		long writes = server.getRequestCountWithPrefix("PUT /v1/config/");
+		assertTrue(writes > 0);
+		assertEquals("Each write should have been made by a module task", writes, loader.getModuleLoadResults().size());
+		for (ModuleLoadResult result : loader.getModuleLoadResults()) {
+			assertTrue(result.isInstalled());
+			assertTrue(result.getDurationMillis() >= 0);
+			assertTrue(loaded.contains(result.getResource()));
+		}
+	}
+
+	@Test
+	public void failedTaskIsThrownAfterOtherTasksFinish() {
+		loader.setExtensionMetadataProvider(r -> {
+			throw new IllegalStateException("Unable to parse metadata for " + r.getFilename());
+		});
+
+		try {
+			loader.loadModules(BASE_DIR, new DefaultModulesFinder(), client);
+			fail("The metadata failure should have been thrown");
+		} catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().startsWith("Unable to parse metadata"));
+		}
+
+		assertEquals("Query options don't need metadata, so they should still have been written", 2,
+			server.getRequestCountWithPrefix("PUT /v1/config/query/"));
+	}
+
+	@Test
+	public void catchExceptions() {
+		loader.setExtensionMetadataProvider(r -> {
+			throw new IllegalStateException("Unable to parse metadata for " + r.getFilename());
+		});
+		loader.setCatchExceptions(true);
+
+		Set<Resource> loaded = loader.loadModules(BASE_DIR, new DefaultModulesFinder(), client);
+		assertEquals(0, server.getRequestCountWithPrefix("PUT /v1/config/resources/"));
+		assertEquals(0, server.getRequestCountWithPrefix("PUT /v1/config/transforms/"));
+		assertTrue("A module that failed should still be considered loaded when catchExceptions is true",
+			loaded.stream().anyMatch(r -> "sample.xqy".equals(r.getFilename())));
+	}
+
+	@Test
+	public void savesAreBufferedOnlyWhileLoadingModules() {
+		File propertiesFile = new File(tempFolder.getRoot(), "timestamps.properties");
+		PropertiesModuleManager manager = new PropertiesModuleManager(propertiesFile.getAbsolutePath());
+		loader.setModulesManager(manager);
+
+		loader.loadModules(BASE_DIR, new DefaultModulesFinder(), client);
+		assertFalse("Saves should no longer be buffered once the timestamps are flushed", manager.isBufferingSaves());
+		assertTrue(propertiesFile.exists());
+		assertFalse(new File(propertiesFile.getAbsolutePath() + PropertiesModuleManager.JOURNAL_FILE_SUFFIX).exists());
+	}
+
+	@Test
+	public void injectedTaskExecutorIsKeptWhenShutdownIsDisabled() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(2);
+		taskExecutor.afterPropertiesSet();
+		loader.setTaskExecutor(taskExecutor);
+		loader.setShutdownTaskExecutorAfterLoadingModules(false);
+
+		loader.loadModules(BASE_DIR, new DefaultModulesFinder(), client);
+		assertFalse(taskExecutor.getThreadPoolExecutor().isShutdown());
+		assertSame(taskExecutor, loader.getTaskExecutor());
+		taskExecutor.shutdown();
+	}
+}
@@ -0,0 +1,107 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.ext.stub.StubMarkLogicServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Watches a copy of sample-base-dir, loading changes into a stand-in for MarkLogic, so that no server is needed.
+ */
+public class ModulesWatcherTest extends Assert {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private StubMarkLogicServer server;
+	private DatabaseClient client;
+	private Path baseDir;
+	private ModulesWatcher watcher;
+
+	@Before
+	public void setup() throws Exception {
+		server = new StubMarkLogicServer().start();
+		client = server.newClient();
+		baseDir = tempFolder.getRoot().toPath().toRealPath();
+		FileSystemUtils.copyRecursively(Paths.get("src", "test", "resources", "sample-base-dir").toFile(), baseDir.toFile());
+
+		DefaultModulesLoader loader = new DefaultModulesLoader(new AssetFileLoader(client));
+		loader.setModulesManager(null);
+		loader.setCatchExceptions(true);
+		watcher = new ModulesWatcher(loader, client, baseDir.toString());
+		watcher.setDebounceMillis(50);
+	}
+
+	@After
+	public void teardown() {
+		watcher.stop();
+		client.release();
+		server.stop();
+	}
+
+	@Test
+	public void determineModuleType() {
+		assertEquals(ModulesWatcher.ModuleType.SERVICE, typeOf("services/sample.xqy"));
+		assertEquals(ModulesWatcher.ModuleType.SERVICE, typeOf("services/javascript.sjs"));
+		assertNull("Metadata isn't a service", typeOf("services/metadata/sample.xml"));
+		assertEquals(ModulesWatcher.ModuleType.TRANSFORM, typeOf("transforms/sample.xsl"));
+		assertEquals(ModulesWatcher.ModuleType.OPTIONS, typeOf("options/sample-options.xml"));
+		assertEquals(ModulesWatcher.ModuleType.NAMESPACE, typeOf("namespaces/sample.txt"));
+		assertEquals(ModulesWatcher.ModuleType.PROPERTIES, typeOf("rest-properties.json"));
+		assertEquals(ModulesWatcher.ModuleType.ASSET, typeOf("ext/lib/sample-lib.xqy"));
+		assertNull(typeOf("schemas/sample.xsd"));
+		assertNull(typeOf("services/.sample.xqy.swp"));
+		assertNull(typeOf("README.md"));
+
+		watcher.getModulesFinder().setIncludeUnrecognizedPathsAsAssetPaths(false);
+		assertNull(typeOf("ext/lib/sample-lib.xqy"));
+	}
+
+	@Test
+	public void onlyChangedFilesAreLoaded() {
+		Set<Resource> loaded = watcher.loadChangedFiles(Arrays.asList(
+			baseDir.resolve("services/sample.xqy"),
+			baseDir.resolve("ext/module1.xqy"),
+			baseDir.resolve("services/metadata/sample.xml")));
+
+		assertEquals(2, loaded.size());
+		assertEquals(1, server.getRequestCountWithPrefix("PUT /v1/config/resources/"));
+		assertEquals(0, server.getRequestCountWithPrefix("PUT /v1/config/transforms/"));
+		assertEquals(1, server.getDocumentsWritten());
+	}
+
+	@Test
+	public void changeIsLoadedAfterDebounce() throws Exception {
+		watcher.start();
+		Files.write(baseDir.resolve("services/sample.xqy"), "xquery version '1.0-ml';".getBytes(StandardCharsets.UTF_8));
+		File newDir = baseDir.resolve("newassets").toFile();
+		assertTrue(newDir.mkdir());
+		Files.write(newDir.toPath().resolve("new.xqy"), "1".getBytes(StandardCharsets.UTF_8));
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while ((server.getRequestCountWithPrefix("PUT /v1/config/resources/") == 0 || server.getDocumentsWritten() == 0)
+			&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(1, server.getRequestCountWithPrefix("PUT /v1/config/resources/"));
+		assertEquals("The file in the new directory should have been loaded", 1, server.getDocumentsWritten());
+	}
+
+	private ModulesWatcher.ModuleType typeOf(String relativePath) {
+		return watcher.determineModuleType(baseDir, baseDir.resolve(relativePath));
+	}
+}
@@ -0,0 +1,92 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PhaseSchedulerTest extends Assert {
+
+	private List<String> finished = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	public void independentPhasesRunConcurrently() throws Exception {
+		// Each of these phases waits for the other, so they can only finish if they run at the same time
+		CountDownLatch latch = new CountDownLatch(2);
+		ThreadPoolTaskExecutor executor = newExecutor();
+		try {
+			new PhaseScheduler()
+				.addPhase("first", () -> finished.add("first"))
+				.addPhase("a", () -> awaitOther(latch, "a"), "first")
+				.addPhase("b", () -> awaitOther(latch, "b"), "first")
+				.addPhase("last", () -> finished.add("last"), "a", "b")
+				.run(executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(4, finished.size());
+		assertEquals("first", finished.get(0));
+		assertEquals("last", finished.get(3));
+	}
+
+	@Test
+	public void syncTaskExecutorRunsPhasesInOrder() {
+		new PhaseScheduler()
+			.addPhase("one", () -> finished.add("one"))
+			.addPhase("two", () -> finished.add("two"))
+			.addPhase("three", () -> finished.add("three"), "one")
+			.run(new SyncTaskExecutor());
+		assertEquals(Arrays.asList("one", "two", "three"), finished);
+	}
+
+	@Test
+	public void failedPhaseSkipsDependents() {
+		ThreadPoolTaskExecutor executor = newExecutor();
+		try {
+			new PhaseScheduler()
+				.addPhase("fails", () -> {
+					throw new IllegalStateException("Phase failed");
+				})
+				.addPhase("dependent", () -> finished.add("dependent"), "fails")
+				.addPhase("independent", () -> finished.add("independent"))
+				.run(executor);
+			fail("The phase failure should have been thrown");
+		} catch (IllegalStateException ex) {
+			assertEquals("Phase failed", ex.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(Arrays.asList("independent"), finished);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownDependency() {
+		new PhaseScheduler().addPhase("a", () -> {
+		}, "b");
+	}
+
+	private void awaitOther(CountDownLatch latch, String name) {
+		latch.countDown();
+		try {
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		finished.add(name);
+	}
+
+	private ThreadPoolTaskExecutor newExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(4);
+		executor.afterPropertiesSet();
+		return executor;
+	}
+}
@@ -0,0 +1,82 @@
+package com.marklogic.client.ext.modulesloader.impl;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Date;
+
+public class PropertiesModuleManagerTest extends Assert {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void bufferedSavesAreFlushedOnce() throws Exception {
+		File propertiesFile = new File(tempFolder.getRoot(), "timestamps.properties");
+		PropertiesModuleManager sut = newBufferedManager(propertiesFile);
+
+		File module = tempFolder.newFile("module.xqy");
+		sut.saveLastLoadedTimestamp(module, new Date(module.lastModified() + 1000));
+		assertFalse(sut.hasFileBeenModifiedSinceLastLoaded(module));
+		assertFalse("The properties file shouldn't be written until flush is called", propertiesFile.exists());
+		assertTrue(sut.getJournalFile().exists());
+
+		sut.flush();
+		assertTrue(propertiesFile.exists());
+		assertFalse("The journal should be deleted once it's been flushed", sut.getJournalFile().exists());
+
+		sut = newBufferedManager(propertiesFile);
+		assertFalse(sut.hasFileBeenModifiedSinceLastLoaded(module));
+	}
+
+	@Test
+	public void unflushedJournalIsReplayed() throws Exception {
+		File propertiesFile = new File(tempFolder.getRoot(), "timestamps.properties");
+		PropertiesModuleManager sut = newBufferedManager(propertiesFile);
+
+		File module = tempFolder.newFile("module with spaces=and equals.xqy");
+		sut.saveLastLoadedTimestamp(module, new Date(module.lastModified() + 1000));
+		sut.closeJournalWriter();
+
+		// Simulates a process that died before flush was called
+		sut = newBufferedManager(propertiesFile);
+		assertFalse("The timestamp should have been read from the journal", sut.hasFileBeenModifiedSinceLastLoaded(module));
+		sut.flush();
+		assertTrue(propertiesFile.exists());
+		assertFalse(sut.getJournalFile().exists());
+	}
+
+	@Test
+	public void bufferingSavesNests() throws Exception {
+		File propertiesFile = new File(tempFolder.getRoot(), "timestamps.properties");
+		PropertiesModuleManager sut = new PropertiesModuleManager(propertiesFile.getAbsolutePath());
+		sut.initialize();
+		File module = tempFolder.newFile("module.xqy");
+
+		sut.beginBufferingSaves();
+		sut.beginBufferingSaves();
+		sut.endBufferingSaves();
+		assertTrue("Saves should stay buffered until every caller has ended buffering", sut.isBufferingSaves());
+		sut.saveLastLoadedTimestamp(module, new Date(module.lastModified() + 1000));
+		assertFalse(propertiesFile.exists());
+		assertTrue(sut.getJournalFile().exists());
+
+		sut.flush();
+		sut.endBufferingSaves();
+		assertFalse(sut.isBufferingSaves());
+		assertFalse(sut.isBufferSaves());
+		sut.saveLastLoadedTimestamp(module, new Date(module.lastModified() + 2000));
+		assertTrue(propertiesFile.exists());
+		assertFalse(sut.getJournalFile().exists());
+	}
+
+	private PropertiesModuleManager newBufferedManager(File propertiesFile) {
+		PropertiesModuleManager manager = new PropertiesModuleManager(propertiesFile.getAbsolutePath());
+		manager.setBufferSaves(true);
+		manager.initialize();
+		return manager;
+	}
+}
@@ -0,0 +1,162 @@
+package com.marklogic.client.ext.stub;
+
+import com.marklogic.xcc.Content;
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.RequestOptions;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for an XCC ContentSource for a single host. XCC uses its own wire protocol, so rather than emulating that
+ * protocol, this provides ContentSource and Session implementations whose insertContent methods read and discard the
+ * content after waiting for latencyMillis plus slownessMillis, and which fail with a ServerConnectionException at the
+ * given errorRate - the same model as StubMarkLogicServer.
+ */
+public class StubContentSource {
+
+	private final String name;
+	private final ContentSource contentSource;
+
+	private volatile long latencyMillis = 0;
+	private volatile long slownessMillis = 0;
+	private volatile double errorRate = 0;
+
+	private final AtomicLong documentsWritten = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final AtomicLong sessionsCreated = new AtomicLong();
+	private final AtomicLong errorsReturned = new AtomicLong();
+
+	public StubContentSource(String name) {
+		this.name = name;
+		this.contentSource = (ContentSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[]{ContentSource.class}, (proxy, method, args) -> {
+				switch (method.getName()) {
+					case "newSession":
+						return newSession();
+					case "toString":
+						return name;
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						throw new UnsupportedOperationException(method.getName());
+				}
+			});
+	}
+
+	protected Session newSession() {
+		sessionsCreated.incrementAndGet();
+		final boolean[] closed = new boolean[1];
+		final RequestOptions[] options = new RequestOptions[]{new RequestOptions()};
+		return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class},
+			(proxy, method, args) -> {
+				switch (method.getName()) {
+					case "insertContent":
+						insertContent(args[0] instanceof Content[] ? (Content[]) args[0] : new Content[]{(Content) args[0]});
+						return null;
+					case "close":
+						closed[0] = true;
+						return null;
+					case "isClosed":
+						return closed[0];
+					case "setDefaultRequestOptions":
+						options[0] = (RequestOptions) args[0];
+						return null;
+					case "getDefaultRequestOptions":
+						return options[0];
+					case "isAutoCommit":
+						return true;
+					case "getUpdate":
+						return Session.Update.AUTO;
+					case "getUserObject":
+						return null;
+					case "getContentSource":
+						return contentSource;
+					case "toString":
+						return name + " session";
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						throw new UnsupportedOperationException(method.getName());
+				}
+			});
+	}
+
+	protected void insertContent(Content[] contents) throws ServerConnectionException, IOException, InterruptedException {
+		long delay = latencyMillis + slownessMillis;
+		if (delay > 0) {
+			Thread.sleep(delay);
+		}
+		if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+			errorsReturned.incrementAndGet();
+			throw new ServerConnectionException("Simulated failure from " + name, null);
+		}
+		byte[] buffer = new byte[8192];
+		for (Content content : contents) {
+			try (InputStream in = content.openDataStream()) {
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					bytesReceived.addAndGet(read);
+				}
+			}
+		}
+		documentsWritten.addAndGet(contents.length);
+	}
+
+	public ContentSource getContentSource() {
+		return contentSource;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getDocumentsWritten() {
+		return documentsWritten.get();
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	public long getSessionsCreated() {
+		return sessionsCreated.get();
+	}
+
+	public long getErrorsReturned() {
+		return errorsReturned.get();
+	}
+
+	public long getLatencyMillis() {
+		return latencyMillis;
+	}
+
+	public void setLatencyMillis(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	public long getSlownessMillis() {
+		return slownessMillis;
+	}
+
+	public void setSlownessMillis(long slownessMillis) {
+		this.slownessMillis = slownessMillis;
+	}
+
+	public double getErrorRate() {
+		return errorRate;
+	}
+
+	public void setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+	}
+}
@@ -0,0 +1,243 @@
+package com.marklogic.client.ext.stub;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.DatabaseClientFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded HTTP server that stands in for a single MarkLogic REST API host, so that the REST-based writers and loaders
+ * can be exercised without a live cluster. It accepts multipart writes to /v1/documents, PUTs to /v1/config/*, calls
+ * to /v1/eval, and the /v1/internal/forestinfo call made by the Data Movement SDK. Content is counted and discarded.
+ * <p>
+ * Every request waits for latencyMillis plus slownessMillis - the latter being intended for making one of several
+ * hosts slower than the rest - and then fails with errorStatusCode at the given errorRate. The default error is a 500
+ * with a retryable XDMP-FORESTNOTOPEN message code; a 503 would also be retried internally by the Java Client.
+ */
+public class StubMarkLogicServer {
+
+	private final static Logger logger = LoggerFactory.getLogger(StubMarkLogicServer.class);
+
+	private final static Pattern DISPOSITION_PATTERN = Pattern.compile(
+		"Content-Disposition: attachment; ?filename=\"?([^\"\\r\\n;]+)\"?([^\\r\\n]*)", Pattern.CASE_INSENSITIVE);
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	private volatile long latencyMillis = 0;
+	private volatile long slownessMillis = 0;
+	private volatile double errorRate = 0;
+	private volatile int errorStatusCode = 500;
+
+	private final AtomicLong documentsWritten = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final AtomicLong errorsReturned = new AtomicLong();
+	private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+	public StubMarkLogicServer start() {
+		try {
+			server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		} catch (IOException ex) {
+			throw new RuntimeException("Unable to start stub server: " + ex.getMessage(), ex);
+		}
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Started stub MarkLogic server on port " + getPort());
+		}
+		return this;
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	public DatabaseClient newClient() {
+		return DatabaseClientFactory.newClient(getHost(), getPort(),
+			new DatabaseClientFactory.BasicAuthContext("stub-user", "stub-password"));
+	}
+
+	protected void handle(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath();
+			byte[] body = FileCopyUtils.copyToByteArray(exchange.getRequestBody());
+			bytesReceived.addAndGet(body.length);
+			requestCounts.computeIfAbsent(exchange.getRequestMethod() + " " + path, key -> new AtomicLong()).incrementAndGet();
+
+			long delay = latencyMillis + slownessMillis;
+			if (delay > 0) {
+				Thread.sleep(delay);
+			}
+			if (errorRate > 0 && !path.startsWith("/v1/internal") && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				errorsReturned.incrementAndGet();
+				respond(exchange, errorStatusCode, "application/json", "{\"errorResponse\":{\"statusCode\":" + errorStatusCode
+					+ ", \"status\":\"Stub Error\", \"messageCode\":\"XDMP-FORESTNOTOPEN\", \"message\":\"Simulated failure\"}}");
+				return;
+			}
+
+			if (path.equals("/v1/documents")) {
+				handleDocuments(exchange, body);
+			} else if (path.startsWith("/v1/config/")) {
+				handleConfig(exchange);
+			} else if (path.equals("/v1/eval")) {
+				respond(exchange, 200, "multipart/mixed; boundary=STUB", "--STUB--\r\n");
+			} else if (path.equals("/v1/internal/forestinfo")) {
+				String host = getHost();
+				respond(exchange, 200, "application/json", "[{\"id\":\"1\", \"database\":\"Documents\", \"name\":\"stub-forest\", " +
+					"\"host\":\"" + host + "\", \"alternateHost\":\"" + host + "\", \"openReplicaHost\":\"" + host + "\", " +
+					"\"requestHost\":\"" + host + "\", \"updatesAllowed\":\"all\"}]");
+			} else {
+				respond(exchange, 404, "application/json", "{\"errorResponse\":{\"statusCode\":404, \"status\":\"Not Found\"}}");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException ex) {
+			logger.error("Stub server failed to handle request: " + ex.getMessage(), ex);
+			respond(exchange, 500, "text/plain", ex.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * A multipart write has one attachment part for the content of each document, and possibly another attachment part,
+	 * with a category of "metadata", for its metadata. A single document is sent as the body of a PUT with a "uri"
+	 * parameter.
+	 */
+	protected void handleDocuments(HttpExchange exchange, byte[] body) throws IOException {
+		StringBuilder json = new StringBuilder("{\"documents\":[");
+		String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+		if (contentType != null && contentType.startsWith("multipart/")) {
+			Matcher m = DISPOSITION_PATTERN.matcher(new String(body, StandardCharsets.ISO_8859_1));
+			int count = 0;
+			while (m.find()) {
+				if (m.group(2).contains("category=metadata")) {
+					continue;
+				}
+				if (count++ > 0) {
+					json.append(",");
+				}
+				json.append("{\"uri\":\"").append(m.group(1)).append("\", \"mime-type\":\"application/octet-stream\", " +
+					"\"category\":[\"metadata\",\"content\"]}");
+			}
+			documentsWritten.addAndGet(count);
+		} else {
+			documentsWritten.incrementAndGet();
+		}
+		respond(exchange, 200, "application/json", json.append("]}").toString());
+	}
+
+	protected void handleConfig(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		if ("GET".equals(method)) {
+			respond(exchange, 200, "application/json", "{}");
+		} else if ("POST".equals(method)) {
+			exchange.sendResponseHeaders(201, -1);
+		} else {
+			exchange.sendResponseHeaders(204, -1);
+		}
+	}
+
+	private void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * @param methodAndPath e.g. "PUT /v1/config/resources/sample"
+	 * @return the number of requests received with the given method and path
+	 */
+	public long getRequestCount(String methodAndPath) {
+		AtomicLong count = requestCounts.get(methodAndPath);
+		return count != null ? count.get() : 0;
+	}
+
+	public long getRequestCountWithPrefix(String methodAndPathPrefix) {
+		long total = 0;
+		for (Map.Entry<String, AtomicLong> entry : requestCounts.entrySet()) {
+			if (entry.getKey().startsWith(methodAndPathPrefix)) {
+				total += entry.getValue().get();
+			}
+		}
+		return total;
+	}
+
+	public String getHost() {
+		return server.getAddress().getAddress().getHostAddress();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public long getDocumentsWritten() {
+		return documentsWritten.get();
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	public long getErrorsReturned() {
+		return errorsReturned.get();
+	}
+
+	public long getLatencyMillis() {
+		return latencyMillis;
+	}
+
+	public void setLatencyMillis(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	public long getSlownessMillis() {
+		return slownessMillis;
+	}
+
+	public void setSlownessMillis(long slownessMillis) {
+		this.slownessMillis = slownessMillis;
+	}
+
+	public double getErrorRate() {
+		return errorRate;
+	}
+
+	public void setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	public int getErrorStatusCode() {
+		return errorStatusCode;
+	}
+
+	public void setErrorStatusCode(int errorStatusCode) {
+		this.errorStatusCode = errorStatusCode;
+	}
+}
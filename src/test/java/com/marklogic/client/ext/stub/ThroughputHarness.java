@@ -0,0 +1,131 @@
+package com.marklogic.client.ext.stub;
+
+import com.marklogic.client.document.DocumentWriteOperation;
+import com.marklogic.client.ext.batch.BatchWriter;
+import com.marklogic.client.ext.batch.SimpleDocumentWriteOperation;
+import com.marklogic.client.ext.batch.WriteMetrics;
+import com.marklogic.client.ext.batch.WriteMetricsSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Drives a BatchWriter - or any other workload - against a StubMarkLogicServer or StubContentSource and reports
+ * documents per second, batch latency percentiles, and the heap high-water mark.
+ * <p>
+ * Documents are generated one batch at a time as they're written, so that the heap high-water mark reflects what the
+ * writer holds on to rather than the test data. The high-water mark is the sum of the peak usage of each heap memory
+ * pool, and is thus an upper bound, as each pool may have peaked at a different time.
+ */
+public class ThroughputHarness {
+
+	private final static Logger logger = LoggerFactory.getLogger(ThroughputHarness.class);
+
+	private int documentCount = 10000;
+	private int documentSize = 1024;
+	private int batchSize = 100;
+
+	/**
+	 * Writes documentCount JSON documents of roughly documentSize characters each, in lists of batchSize, via the
+	 * given BatchWriter. The writer's WriteMetricsListener, if it's WriteMetrics, is used for batch latencies.
+	 *
+	 * @param name               for the report
+	 * @param writer             must not have been initialized yet
+	 * @param documentsReceived  returns the number of documents received by the stub(s) so far
+	 * @param metrics            the WriteMetrics the writer reports to; may be null
+	 * @return
+	 */
+	public ThroughputReport writeDocuments(String name, BatchWriter writer, LongSupplier documentsReceived, WriteMetrics metrics) {
+		final String padding = buildPadding();
+		return measure(name, documentsReceived, metrics, () -> {
+			writer.initialize();
+			for (int start = 0; start < documentCount; start += batchSize) {
+				int end = Math.min(documentCount, start + batchSize);
+				List<DocumentWriteOperation> batch = new ArrayList<>(end - start);
+				for (int i = start; i < end; i++) {
+					batch.add(new SimpleDocumentWriteOperation("/harness/" + i + ".json",
+						"{\"id\":" + i + ", \"padding\":\"" + padding + "\"}", "harness"));
+				}
+				writer.write(batch);
+			}
+			writer.waitForCompletion();
+		});
+	}
+
+	/**
+	 * Runs the workload and reports on it.
+	 *
+	 * @param name
+	 * @param documentsReceived returns the number of documents received by the stub(s) so far
+	 * @param metrics           may be null, in which case no latencies are reported
+	 * @param workload
+	 * @return
+	 */
+	public ThroughputReport measure(String name, LongSupplier documentsReceived, WriteMetrics metrics, Runnable workload) {
+		List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				heapPools.add(pool);
+			}
+		}
+		System.gc();
+		for (MemoryPoolMXBean pool : heapPools) {
+			pool.resetPeakUsage();
+		}
+
+		long startDocuments = documentsReceived.getAsLong();
+		long start = System.nanoTime();
+		workload.run();
+		long elapsedNanos = System.nanoTime() - start;
+
+		long heapHighWater = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			heapHighWater += pool.getPeakUsage().getUsed();
+		}
+
+		WriteMetricsSnapshot snapshot = metrics != null ? metrics.snapshot() : null;
+		ThroughputReport report = new ThroughputReport(name, documentsReceived.getAsLong() - startDocuments,
+			elapsedNanos / 1000000, snapshot != null ? snapshot.getP50LatencyMillis() : -1,
+			snapshot != null ? snapshot.getP99LatencyMillis() : -1, heapHighWater);
+		logger.info(report.toString());
+		return report;
+	}
+
+	private String buildPadding() {
+		StringBuilder sb = new StringBuilder(documentSize);
+		while (sb.length() < documentSize) {
+			sb.append("abcdefghijklmnopqrstuvwxyz");
+		}
+		return sb.substring(0, documentSize);
+	}
+
+	public int getDocumentCount() {
+		return documentCount;
+	}
+
+	public void setDocumentCount(int documentCount) {
+		this.documentCount = documentCount;
+	}
+
+	public int getDocumentSize() {
+		return documentSize;
+	}
+
+	public void setDocumentSize(int documentSize) {
+		this.documentSize = documentSize;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+}
@@ -0,0 +1,63 @@
+package com.marklogic.client.ext.stub;
+
+/**
+ * Result of a ThroughputHarness run. Latencies are -1 when they weren't measured.
+ */
+public class ThroughputReport {
+
+	private final String name;
+	private final long documents;
+	private final long elapsedMillis;
+	private final double p50LatencyMillis;
+	private final double p99LatencyMillis;
+	private final long heapHighWaterBytes;
+
+	public ThroughputReport(String name, long documents, long elapsedMillis, double p50LatencyMillis,
+	                        double p99LatencyMillis, long heapHighWaterBytes) {
+		this.name = name;
+		this.documents = documents;
+		this.elapsedMillis = elapsedMillis;
+		this.p50LatencyMillis = p50LatencyMillis;
+		this.p99LatencyMillis = p99LatencyMillis;
+		this.heapHighWaterBytes = heapHighWaterBytes;
+	}
+
+	public double getDocumentsPerSecond() {
+		return elapsedMillis > 0 ? documents * 1000.0 / elapsedMillis : 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d documents in %dms; %.1f docs/sec; batch latency p50 %s, p99 %s; heap high-water %.1fMB",
+			name, documents, elapsedMillis, getDocumentsPerSecond(), formatLatency(p50LatencyMillis),
+			formatLatency(p99LatencyMillis), heapHighWaterBytes / (1024.0 * 1024));
+	}
+
+	private String formatLatency(double millis) {
+		return millis < 0 ? "n/a" : String.format("%.1fms", millis);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getDocuments() {
+		return documents;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public double getP50LatencyMillis() {
+		return p50LatencyMillis;
+	}
+
+	public double getP99LatencyMillis() {
+		return p99LatencyMillis;
+	}
+
+	public long getHeapHighWaterBytes() {
+		return heapHighWaterBytes;
+	}
+}
@@ -0,0 +1,123 @@
+package com.marklogic.client.ext.stub;
+
+import com.marklogic.client.DatabaseClient;
+import com.marklogic.client.ext.batch.BatchRetryPolicy;
+import com.marklogic.client.ext.batch.DataMovementBatchWriter;
+import com.marklogic.client.ext.batch.RestBatchWriter;
+import com.marklogic.client.ext.batch.WriteMetrics;
+import com.marklogic.client.ext.batch.XccBatchWriter;
+import com.marklogic.client.ext.modulesloader.impl.AssetFileLoader;
+import com.marklogic.client.ext.modulesloader.impl.DefaultModulesFinder;
+import com.marklogic.client.ext.modulesloader.impl.DefaultModulesLoader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Runs each writer, and the DefaultModulesLoader, against stand-ins for MarkLogic with a small amount of latency, a
+ * slow host, and some transient errors. The document counts are kept small so that this runs quickly as part of the
+ * build; increase them on the ThroughputHarness to measure throughput.
+ */
+public class WriterThroughputTest extends Assert {
+
+	private StubMarkLogicServer host1;
+	private StubMarkLogicServer host2;
+	private ThroughputHarness harness;
+
+	@Before
+	public void setup() {
+		host1 = new StubMarkLogicServer().start();
+		host2 = new StubMarkLogicServer().start();
+		host1.setLatencyMillis(1);
+		host2.setLatencyMillis(1);
+		host2.setSlownessMillis(5);
+
+		harness = new ThroughputHarness();
+		harness.setDocumentCount(1000);
+		harness.setBatchSize(50);
+	}
+
+	@After
+	public void teardown() {
+		host1.stop();
+		host2.stop();
+	}
+
+	@Test
+	public void restBatchWriter() {
+		host1.setErrorRate(0.05);
+		host2.setErrorRate(0.05);
+		RestBatchWriter writer = new RestBatchWriter(Arrays.asList(host1.newClient(), host2.newClient()));
+		writer.setThreadCount(4);
+		writer.setRetryPolicy(newRetryPolicy());
+		WriteMetrics metrics = new WriteMetrics();
+		writer.setMetricsListener(metrics);
+
+		ThroughputReport report = harness.writeDocuments("RestBatchWriter", writer,
+			() -> host1.getDocumentsWritten() + host2.getDocumentsWritten(), metrics);
+
+		assertEquals(1000, report.getDocuments());
+		assertTrue(report.getP99LatencyMillis() >= report.getP50LatencyMillis());
+		assertEquals(2, metrics.snapshot().getHosts().size());
+		assertEquals(metrics.snapshot().getRetries(), host1.getErrorsReturned() + host2.getErrorsReturned());
+	}
+
+	@Test
+	public void xccBatchWriter() {
+		StubContentSource source1 = new StubContentSource("host1");
+		StubContentSource source2 = new StubContentSource("host2");
+		source1.setLatencyMillis(1);
+		source2.setLatencyMillis(1);
+		source2.setSlownessMillis(5);
+		source1.setErrorRate(0.05);
+		XccBatchWriter writer = new XccBatchWriter(Arrays.asList(source1.getContentSource(), source2.getContentSource()));
+		writer.setThreadCount(4);
+		writer.setPooledSessions(true);
+		writer.setRetryPolicy(newRetryPolicy());
+		WriteMetrics metrics = new WriteMetrics();
+		writer.setMetricsListener(metrics);
+
+		ThroughputReport report = harness.writeDocuments("XccBatchWriter", writer,
+			() -> source1.getDocumentsWritten() + source2.getDocumentsWritten(), metrics);
+
+		assertEquals(1000, report.getDocuments());
+		assertTrue("Sessions should have been pooled", source1.getSessionsCreated() + source2.getSessionsCreated() < 20);
+	}
+
+	@Test
+	public void dataMovementBatchWriter() {
+		DataMovementBatchWriter writer = new DataMovementBatchWriter(host1.newClient());
+		writer.setBatchSize(50);
+		writer.setThreadCount(4);
+
+		// WriteBatcher doesn't report batch durations, so no latencies are reported
+		ThroughputReport report = harness.writeDocuments("DataMovementBatchWriter", writer, host1::getDocumentsWritten, null);
+		assertEquals(1000, report.getDocuments());
+	}
+
+	@Test
+	public void defaultModulesLoader() {
+		DatabaseClient client = host1.newClient();
+		DefaultModulesLoader loader = new DefaultModulesLoader(new AssetFileLoader(client));
+		loader.setModulesManager(null);
+		String baseDir = Paths.get("src", "test", "resources", "sample-base-dir").toString();
+
+		ThroughputReport report = harness.measure("DefaultModulesLoader", host1::getDocumentsWritten, null,
+			() -> loader.loadModules(baseDir, new DefaultModulesFinder(), client));
+
+		assertTrue("Assets should have been written", report.getDocuments() > 0);
+		assertTrue("REST modules should have been installed", host1.getRequestCountWithPrefix("PUT /v1/config/") > 0);
+	}
+
+	private BatchRetryPolicy newRetryPolicy() {
+		BatchRetryPolicy policy = new BatchRetryPolicy();
+		policy.setMaxRetries(10);
+		policy.setInitialBackoffMillis(1);
+		policy.setMaxBackoffMillis(10);
+		return policy;
+	}
+}
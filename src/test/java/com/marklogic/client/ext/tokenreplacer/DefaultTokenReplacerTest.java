@@ -0,0 +1,90 @@
+package com.marklogic.client.ext.tokenreplacer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+
+public class DefaultTokenReplacerTest extends Assert {
+
+	@Test
+	public void longestTokenWins() {
+		Properties props = new Properties();
+		props.setProperty("color", "red");
+		props.setProperty("colors", "red and blue");
+		props.setProperty("vehicle", "${color} wagon");
+
+		DefaultTokenReplacer sut = new DefaultTokenReplacer();
+		sut.setPropertyPrefix("@ml.");
+		sut.setProperties(props);
+
+		assertEquals("red, red and blue, red wagon, @ml.unknown",
+			sut.replaceTokens("@ml.color, @ml.colors, @ml.vehicle, @ml.unknown"));
+	}
+
+	@Test
+	public void replacedValuesAreNotScannedAgain() {
+		Properties props = new Properties();
+		props.setProperty("a", "b");
+		props.setProperty("b", "c");
+
+		DefaultTokenReplacer sut = new DefaultTokenReplacer();
+		sut.setProperties(props);
+
+		assertEquals("bc", sut.replaceTokens("ab"));
+	}
+
+	@Test
+	public void noTokensReturnsSameText() {
+		Properties props = new Properties();
+		props.setProperty("color", "red");
+
+		DefaultTokenReplacer sut = new DefaultTokenReplacer();
+		sut.setPropertyPrefix("@ml.");
+		sut.setProperties(props);
+
+		String text = "There's nothing to replace in color";
+		assertSame(text, sut.replaceTokens(text));
+	}
+
+	@Test
+	public void rebuildAfterPropertiesSourceChanges() {
+		Properties props = new Properties();
+		props.setProperty("color", "red");
+
+		DefaultTokenReplacer sut = new DefaultTokenReplacer();
+		sut.addPropertiesSource(() -> props);
+		assertEquals("red", sut.replaceTokens("color"));
+
+		props.setProperty("color", "blue");
+		assertEquals("The resolved value should be reused until rebuild is called", "red", sut.replaceTokens("color"));
+
+		sut.rebuild();
+		assertEquals("blue", sut.replaceTokens("color"));
+	}
+
+	@Test
+	public void streamTokensAcrossBufferBoundaries() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("color", "red");
+		props.setProperty("colors", "red and blue");
+
+		DefaultTokenReplacer sut = new DefaultTokenReplacer();
+		sut.setPropertyPrefix("@ml.");
+		sut.setProperties(props);
+		sut.setBufferSize(4);
+
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			text.append(i).append(" @ml.color @ml.colors|");
+		}
+		text.append("@ml.colo");
+
+		StringWriter writer = new StringWriter();
+		sut.replaceTokens(new StringReader(text.toString()), writer);
+		assertEquals(sut.replaceTokens(text.toString()), writer.toString());
+		assertTrue(writer.toString().startsWith("0 red red and blue|1 red"));
+	}
+}
@@ -4,19 +4,25 @@ import com.marklogic.client.document.DocumentWriteOperation;
 import com.marklogic.client.impl.DocumentWriteOperationImpl;
 import com.marklogic.client.io.DocumentMetadataHandle;
 import com.marklogic.client.io.Format;
+import com.marklogic.client.io.OutputStreamHandle;
 import com.marklogic.client.io.StringHandle;
 import com.marklogic.xcc.Content;
 import com.marklogic.xcc.ContentCapability;
 import com.marklogic.xcc.ContentCreateOptions;
 import com.marklogic.xcc.ContentPermission;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.util.FileCopyUtils;
 
 public class DefaultDocumentWriteOperationAdapterTest extends Assert {
 
 	private DefaultDocumentWriteOperationAdapter sut = new DefaultDocumentWriteOperationAdapter();
 
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
 	@Test
 	public void test() throws Exception {
 		String xml = "<hello>World</hello>";
@@ -60,4 +66,48 @@ public class DefaultDocumentWriteOperationAdapterTest extends Assert {
 			}
 		}
 	}
+
+	@Test
+	public void outputStreamHandleIsWrittenToTempFile() throws Exception {
+		sut.setTempDirectory(tempFolder.getRoot());
+		OutputStreamHandle handle = new OutputStreamHandle(out -> out.write("<hello>World</hello>".getBytes()));
+		DocumentWriteOperation operation = new DocumentWriteOperationImpl(
+			DocumentWriteOperation.OperationType.DOCUMENT_WRITE, "/test.xml", new DocumentMetadataHandle(), handle);
+
+		Content content = sut.adapt(operation);
+		assertEquals(1, tempFolder.getRoot().listFiles().length);
+		assertTrue("File content can be resent by XCC", content.isRewindable());
+		assertEquals("<hello>World</hello>", new String(FileCopyUtils.copyToByteArray(content.openDataStream())));
+
+		content.close();
+		assertEquals("The temporary file should be deleted when the Content is closed",
+			0, tempFolder.getRoot().listFiles().length);
+	}
+
+	@Test
+	public void optionsAreSharedForEqualMetadata() {
+		ContentCreateOptions first = sut.adaptMetadata(buildMetadata("red"));
+		assertSame(first, sut.adaptMetadata(buildMetadata("red")));
+		assertNotSame(first, sut.adaptMetadata(buildMetadata("blue")));
+
+		DocumentMetadataHandle metadata = buildMetadata("red");
+		metadata.withPermission("role2", DocumentMetadataHandle.Capability.UPDATE);
+		assertNotSame(first, sut.adaptMetadata(metadata));
+
+		// Modifying metadata after it's been adapted must not affect the cached options
+		metadata = buildMetadata("red");
+		sut.adaptMetadata(metadata);
+		metadata.getCollections().add("green");
+		assertSame(first, sut.adaptMetadata(buildMetadata("red")));
+
+		sut.setCacheContentCreateOptions(false);
+		assertNotSame(first, sut.adaptMetadata(buildMetadata("red")));
+	}
+
+	private DocumentMetadataHandle buildMetadata(String collection) {
+		DocumentMetadataHandle metadata = new DocumentMetadataHandle();
+		metadata.withCollections(collection);
+		metadata.withPermission("role1", DocumentMetadataHandle.Capability.READ);
+		return metadata;
+	}
 }
@@ -0,0 +1,139 @@
+package com.marklogic.xcc.template;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.RequestOptions;
+import com.marklogic.xcc.Session;
+
+public class SessionPoolTest extends Assert {
+
+    private List<boolean[]> sessions = new ArrayList<>();
+    private List<Object> rolledBack = new ArrayList<>();
+
+    @Test
+    public void reuseAndDiscardSessions() {
+        SessionPool pool = new SessionPool(newContentSource());
+        pool.setMaxIdleSessions(1);
+
+        Session first = pool.borrowSession();
+        pool.releaseSession(first, false);
+        assertSame("The released session should be reused", first, pool.borrowSession());
+        assertEquals(1, sessions.size());
+
+        Session second = pool.borrowSession();
+        pool.releaseSession(first, false);
+        pool.releaseSession(second, false);
+        assertEquals("Only one idle session should be kept", 1, pool.getIdleSessionCount());
+        assertTrue("The session released beyond maxIdleSessions should be closed", sessions.get(1)[0]);
+
+        Session borrowed = pool.borrowSession();
+        pool.releaseSession(borrowed, true);
+        assertTrue("A broken session should be closed instead of pooled", sessions.get(0)[0]);
+        assertEquals(0, pool.getIdleSessionCount());
+
+        Session third = pool.borrowSession();
+        pool.close();
+        pool.releaseSession(third, false);
+        assertTrue("A session released after the pool is closed should be closed", sessions.get(2)[0]);
+    }
+
+    @Test
+    public void updateTransactionIsNotCarriedOver() {
+        XccTemplate template = new XccTemplate(newContentSource());
+        template.setPooledSessions(true);
+
+        Session updateSession = template.execute(session -> {
+            session.setAutoCommit(false);
+            session.setUpdate(Session.Update.TRUE);
+            return session;
+        });
+        assertTrue("The open transaction should have been rolled back", rolledBack.contains(updateSession));
+        assertTrue("A session left in update mode should be closed instead of pooled", updateSession.isClosed());
+        assertEquals(0, template.getSessionPool().getIdleSessionCount());
+
+        Session next = template.execute(session -> session);
+        assertNotSame(updateSession, next);
+        assertTrue(next.isAutoCommit());
+        assertEquals(Session.Update.AUTO, next.getUpdate());
+        assertEquals("A session that wasn't modified should be pooled", 1, template.getSessionPool().getIdleSessionCount());
+        template.close();
+    }
+
+    @Test
+    public void modifiedRequestOptionsAndUserObjectAreNotCarriedOver() {
+        SessionPool pool = new SessionPool(newContentSource());
+
+        Session session = pool.borrowSession();
+        session.setDefaultRequestOptions(new RequestOptions());
+        pool.releaseSession(session, false);
+        assertTrue(session.isClosed());
+
+        session = pool.borrowSession();
+        session.setUserObject("state");
+        pool.releaseSession(session, false);
+        assertTrue(session.isClosed());
+        assertEquals(0, pool.getIdleSessionCount());
+        assertTrue("Sessions in AUTO mode have no transaction to roll back", rolledBack.isEmpty());
+    }
+
+    private ContentSource newContentSource() {
+        return (ContentSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ContentSource.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("newSession")) {
+                    return newSession();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    private Session newSession() {
+        final boolean[] closed = new boolean[1];
+        final Object[] state = new Object[]{true, new RequestOptions(), null, Session.Update.AUTO};
+        sessions.add(closed);
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        closed[0] = true;
+                        return null;
+                    case "isClosed":
+                        return closed[0];
+                    case "isAutoCommit":
+                        return state[0];
+                    case "setAutoCommit":
+                        state[0] = args[0];
+                        return null;
+                    case "getUpdate":
+                        return state[3];
+                    case "setUpdate":
+                        state[3] = args[0];
+                        return null;
+                    case "rollback":
+                        rolledBack.add(proxy);
+                        return null;
+                    case "getDefaultRequestOptions":
+                        return state[1];
+                    case "setDefaultRequestOptions":
+                        state[1] = args[0];
+                        return null;
+                    case "getUserObject":
+                        return state[2];
+                    case "setUserObject":
+                        state[2] = args[0];
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}